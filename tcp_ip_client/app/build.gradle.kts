@@ -48,6 +48,11 @@ android {
     }
     // composeOptions 블록 제거
 
+    testOptions {
+        // 단위 테스트에서 android.util.Log 호출이 예외 대신 기본값을 돌려주도록
+        unitTests.isReturnDefaultValues = true
+    }
+
     packaging {
         resources {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
@@ -0,0 +1,630 @@
+package com.example.tcp_ip_client;
+
+import static android.content.ContentValues.TAG;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 인증 프로토콜 클라이언트 공통 처리
+ *
+ * 메시지 인코딩(텍스트 줄/바이너리 레코드), 요청 ID 응답 매칭, 모드 협상, 수신 줄/레코드 분배를 맡는다.
+ * 소켓을 다루는 방식만 하위 클래스가 정한다.
+ * TCPClient 는 연결마다 수신/쓰기 스레드를 두는 블로킹 소켓, NioTCPClient 는 TcpEventLoop 하나를 공유하는 논블로킹 채널이다.
+ */
+public abstract class AuthClient {
+    // 수신 줄 종류 (앞부분 바이트로 판별)
+    public static final int LINE_OTHER = 0;
+    public static final int LINE_NONCE_S = 1;
+    public static final int LINE_HMAC = 2;
+    public static final int LINE_SUCCESS = 3;
+    public static final int LINE_FAILED = 4;
+
+    // 수신 버퍼 초기 크기와 최대 크기 (레코드 하나가 통째로 들어가야 함)
+    protected static final int RECEIVE_BUFFER_SIZE = 4096;
+    protected static final int MAX_RECEIVE_SIZE = AuthRecord.HEADER_SIZE + AuthRecord.MAX_VALUE_SIZE;
+
+    // 요청 ID 접두사: "#<id> <메시지>", 서버는 응답에 같은 접두사를 붙여 돌려줌
+    private static final char REQUEST_ID_PREFIX = '#';
+
+    // 서버 응답 방식 (연결마다 첫 응답을 보고 한 번만 정함)
+    private static final int REPLY_UNKNOWN = 0;
+    // 응답에 요청 ID 를 붙여 돌려줌: ID 없는 줄은 응답으로 보지 않음
+    private static final int REPLY_TAGGED = 1;
+    // 요청 ID 를 모르는 예전 서버: ID 없는 일반 줄을 보낸 순서대로 응답으로 봄
+    private static final int REPLY_UNTAGGED = 2;
+
+    // 응답 타임아웃 처리용 (모든 연결이 공유)
+    private static final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "tcp-request-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final String serverIP;
+    protected final int serverPort;
+
+    private volatile OnMessageReceviedListener messageListener;
+    private volatile OnRecordReceivedListener recordListener;
+    private volatile OnLineReceivedListener lineListener;
+
+    // 수신 스레드가 줄마다 다시 쓰는 뷰
+    private final LineView lineView = new LineView();
+
+    // 보내는 쪽 바이너리 레코드 모드 (서버 수락에 확인 줄을 보낸 뒤부터)
+    private volatile boolean binaryMode = false;
+    // 받는 쪽 바이너리 레코드 모드 (서버가 확인 줄을 돌려보낸 뒤부터, 수신 스레드에서만 바꿈)
+    private volatile boolean binaryReceive = false;
+    // 진행 중인 모드 협상 (바꿀 때는 negotiationLock 으로 동기화)
+    private volatile CompletableFuture<Boolean> negotiation;
+    // 협상이 끝날 때까지 미뤄 둔 전송 (끝난 뒤 정해진 모드로 인코딩해 보냄)
+    private final List<Runnable> deferredSends = new ArrayList<>();
+    private final Object negotiationLock = new Object();
+    // 서버 응답 방식 (수신 스레드에서 정함)
+    private volatile int replyStyle = REPLY_UNKNOWN;
+
+    // 응답을 기다리는 요청 (보낸 순서 유지, pending 으로 동기화)
+    private final LinkedHashMap<Long, CompletableFuture<String>> pending = new LinkedHashMap<>();
+    private long nextRequestId = 1;
+
+    // 서버로부터 받은 NonceS 값을 저장
+    private byte[] serverNonce = null;
+    // 서버로 받은 HMAC 값을 저장
+    private byte[] serverHmac = null;
+    // 클라이언트에서 생성한 NonceC 값을 저장
+    private byte[] clientNonce = null;
+
+    // 메시지 수신 리스너 인터페이스
+    public interface OnMessageReceviedListener {
+        void onMessageReceived(String message);
+    }
+
+    // 바이너리 레코드 수신 리스너 (TEXT 레코드는 메시지 리스너로 전달)
+    // 값은 수신 버퍼의 일부이므로 리스너 안에서 복사해서 써야 한다.
+    public interface OnRecordReceivedListener {
+        void onRecordReceived(int type, byte[] buffer, int offset, int length);
+    }
+
+    // 수신 줄 리스너 (String 을 만들지 않고 수신 버퍼 뷰로 전달)
+    // line 은 호출이 끝나면 다음 줄로 바뀌므로 보관하려면 복사해야 한다.
+    public interface OnLineReceivedListener {
+        void onLineReceived(int type, LineView line);
+    }
+
+    protected AuthClient(String serverIP, int serverPort, OnMessageReceviedListener listener) {
+        this.serverIP = serverIP;
+        this.serverPort = serverPort;
+        this.messageListener = listener;
+    }
+
+    // 서버에 연결
+    public abstract boolean connect();
+
+    // 메시지 수신 시작
+    public abstract void startListening();
+
+    // 연결 종료
+    public abstract void disconnect();
+
+    // 연결 상태 확인
+    public abstract boolean isConnected();
+
+    /**
+     * 인코딩된 메시지를 전송 큐에 넣음 (어느 스레드에서든 호출, 바로 반환)
+     */
+    protected abstract void enqueue(byte[] encoded);
+
+    /**
+     * 새 연결 시작 시 프로토콜 상태 초기화
+     */
+    protected void resetSession() {
+        cancelNegotiation();
+        binaryMode = false;
+        binaryReceive = false;
+        replyStyle = REPLY_UNKNOWN;
+    }
+
+    // 메시지 전송
+    // 전송 큐에 넣고 바로 반환, 실제 쓰기는 하위 클래스의 전송 경로가 함
+    // 바이너리 모드에서는 TEXT 레코드로 보냄
+    public void sendMessage(final String message) {
+        if (deferWhileNegotiating(() -> sendMessage(message))) {
+            return;
+        }
+        if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+            Log.d(TAG, "전송 요청: " + message);
+        }
+        enqueue(binaryMode ? AuthRecord.text(message) : (message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 바이너리 레코드 모드 협상 (비동기)
+     * 텍스트 줄로 협상 요청을 보내고, 서버가 수락하면 확인 줄을 보낸 뒤 이후 송수신을 레코드로 바꾼다 (AuthRecord 참고).
+     * 서버가 거절하거나 timeoutMs 안에 응답이 없으면 확인 줄을 보내지 않으므로 양쪽 모두 텍스트 모드를 유지한다.
+     * 협상 중에 보내는 메시지는 결과가 나올 때까지 미뤘다가 정해진 모드로 보낸다.
+     * startListening() 이후, 다른 메시지를 보내기 전에 호출해야 한다.
+     * @return 서버가 수락해 보내는 쪽이 레코드로 바뀌었으면 true 로 완료되는 future
+     *         (받는 쪽은 서버가 확인 줄을 돌려보내면 바뀜)
+     */
+    public CompletableFuture<Boolean> negotiateBinaryModeAsync(long timeoutMs) {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        synchronized (negotiationLock) {
+            if (negotiation != null) {
+                return negotiation;
+            }
+            if (!isConnected() || binaryMode) {
+                return CompletableFuture.completedFuture(binaryMode);
+            }
+            negotiation = result;
+        }
+        enqueue((AuthRecord.NEGOTIATE + "\n").getBytes(StandardCharsets.UTF_8));
+
+        timeoutScheduler.schedule(() -> {
+            if (finishNegotiation(result, false)) {
+                Log.d(TAG, "모드 협상 응답 없음, 텍스트 모드 유지");
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    /**
+     * 협상 중이면 전송을 미룸
+     * @return 미뤘으면 true
+     */
+    private boolean deferWhileNegotiating(Runnable send) {
+        synchronized (negotiationLock) {
+            if (negotiation == null) {
+                return false;
+            }
+            deferredSends.add(send);
+            return true;
+        }
+    }
+
+    /**
+     * 협상 결과 확정: 모드를 정하고 미뤄 둔 전송을 순서대로 보냄
+     * @return expected 가 아직 진행 중인 협상이었으면 true (이미 끝났으면 아무것도 하지 않음)
+     */
+    private boolean finishNegotiation(CompletableFuture<Boolean> expected, boolean accepted) {
+        synchronized (negotiationLock) {
+            if (negotiation != expected) {
+                return false;
+            }
+            negotiation = null;
+            if (accepted) {
+                // 서버는 확인 줄 다음 바이트부터 레코드로 읽음
+                enqueue((AuthRecord.NEGOTIATE_CONFIRM + "\n").getBytes(StandardCharsets.UTF_8));
+                binaryMode = true;
+            }
+            // 락을 쥔 채로 보내야 뒤에 오는 전송이 미뤄 둔 전송을 앞지르지 않음
+            for (Runnable send : deferredSends) {
+                send.run();
+            }
+            deferredSends.clear();
+        }
+        expected.complete(accepted);
+        return true;
+    }
+
+    /**
+     * 진행 중인 협상 취소 (연결 종료/새 연결), 미뤄 둔 전송은 버림
+     */
+    private void cancelNegotiation() {
+        CompletableFuture<Boolean> current;
+        synchronized (negotiationLock) {
+            current = negotiation;
+            negotiation = null;
+            deferredSends.clear();
+        }
+        if (current != null) {
+            current.complete(false);
+        }
+    }
+
+    // 바이너리 레코드 모드 여부 (보내고 받는 쪽 모두 바뀐 뒤 true)
+    public boolean isBinaryMode() {
+        return binaryMode && binaryReceive;
+    }
+
+    // NonceC 전송 (RandomData)
+    public void sendNonceC(final byte[] nonceC) {
+        if (nonceC == null || nonceC.length == 0) {
+            Log.e(TAG, "NonceC 전송 실패: 데이터가 null 또는 빈 배열");
+            return;
+        }
+
+        // 클라이언트 NonceC 저장
+        this.clientNonce = nonceC;
+
+        if (deferWhileNegotiating(() -> sendNonceC(nonceC))) {
+            return;
+        }
+
+        if (binaryMode) {
+            // 원본 바이트 그대로 전송
+            Log.d(TAG, "NonceC 전송: [" + nonceC.length + "]");
+            enqueue(AuthRecord.encode(AuthRecord.NONCE_C, nonceC));
+        } else {
+            // NonceC를 16진수 문자열로 변환
+            String nonceHex = TraceLog.hex(nonceC);
+
+            // 메시지 형식 구성
+            String message = "NonceC : " + nonceHex;
+
+            // 메시지 전송
+            Log.d(TAG, "NonceC 전송: " + message);
+            sendMessage(message);
+        }
+    }
+
+    // HMAC 전송
+    public void sendHmac(final byte[] mac) {
+        if (mac == null || mac.length == 0) {
+            Log.e(TAG, "HMAC 전송 실패: 데이터가 null 또는 빈 배열");
+            return;
+        }
+
+        if (deferWhileNegotiating(() -> sendHmac(mac))) {
+            return;
+        }
+
+        if (binaryMode) {
+            enqueue(AuthRecord.encode(AuthRecord.HMAC, mac));
+        } else {
+            sendMessage("HMAC: " + TraceLog.hex(mac));
+        }
+    }
+
+    /**
+     * 수신 버퍼의 [start, end) 에서 완성된 줄/레코드를 모두 처리 (수신 스레드)
+     * @return 처리하지 못하고 남은 데이터의 시작 위치
+     */
+    protected final int dispatch(byte[] buffer, int start, int end) {
+        // 협상 응답 직후 모드가 바뀔 수 있으므로 한 단위씩 처리
+        while (start < end) {
+            int consumed = binaryReceive
+                    ? dispatchRecord(buffer, start, end)
+                    : dispatchLine(buffer, start, end);
+            if (consumed == 0) {
+                break;
+            }
+            start += consumed;
+        }
+        return start;
+    }
+
+    /**
+     * 텍스트 줄 하나 처리
+     * @return 처리한 바이트 수, 줄이 아직 다 오지 않았으면 0
+     */
+    private int dispatchLine(byte[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '\n') {
+                int length = i - start;
+                if (length > 0 && buffer[i - 1] == '\r') {
+                    length--;
+                }
+                lineView.set(buffer, start, length);
+                handleLine(lineView);
+                return i - start + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 바이너리 레코드 하나 처리
+     * @return 처리한 바이트 수, 레코드가 아직 다 오지 않았으면 0
+     */
+    private int dispatchRecord(byte[] buffer, int start, int end) {
+        int length = AuthRecord.recordLength(buffer, start, end - start);
+        if (length < 0 || end - start < length) {
+            return 0;
+        }
+        int type = buffer[start] & 0xFF;
+        int valueOffset = start + AuthRecord.HEADER_SIZE;
+        int valueLength = length - AuthRecord.HEADER_SIZE;
+
+        if (type == AuthRecord.TEXT) {
+            lineView.set(buffer, valueOffset, valueLength);
+            handleLine(lineView);
+            return length;
+        }
+
+        TraceLog.event(TraceLog.INFO, TAG, "레코드 수신", type);
+        if (type == AuthRecord.NONCE_S) {
+            serverNonce = Arrays.copyOfRange(buffer, valueOffset, valueOffset + valueLength);
+        } else if (type == AuthRecord.HMAC) {
+            serverHmac = Arrays.copyOfRange(buffer, valueOffset, valueOffset + valueLength);
+        }
+
+        OnRecordReceivedListener listener = recordListener;
+        if (listener != null) {
+            listener.onRecordReceived(type, buffer, valueOffset, valueLength);
+        }
+        return length;
+    }
+
+    /**
+     * 텍스트 메시지 처리 (텍스트 줄 또는 TEXT 레코드)
+     * String 은 요청 응답 확인이나 메시지 리스너에 필요할 때만 만든다.
+     */
+    private void handleLine(LineView line) {
+        int type = lineType(line);
+        TraceLog.event(TraceLog.INFO, TAG, "수신 줄", type);
+        if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+            Log.d(TAG, "수신: '" + line + "'");
+        }
+
+        // 모드 협상 줄 ("PROTO BIN1" 로 시작하는 줄만 협상 줄로 봄, 다른 줄은 평소대로 처리)
+        if (!binaryReceive && line.startsWith(AuthRecord.NEGOTIATE)) {
+            handleNegotiationLine(line);
+            return;
+        }
+
+        // 대기 중인 요청의 응답이면 해당 future 완료
+        // NonceS/HMAC/SUCCESS/FAILED 같은 프로토콜 메시지는 요청 응답으로 쓰지 않고 항상 리스너로 보냄
+        if (line.length() > 1 && line.byteAt(0) == REQUEST_ID_PREFIX) {
+            long requestId = requestIdOf(line);
+            if (requestId >= 0 && completeTaggedRequest(requestId, line)) {
+                return;
+            }
+        } else if (type == LINE_OTHER && replyStyle != REPLY_TAGGED) {
+            if (completeOldestRequest(line)) {
+                return;
+            }
+        }
+
+        OnLineReceivedListener currentLineListener = lineListener;
+        if (currentLineListener != null) {
+            currentLineListener.onLineReceived(type, line);
+        }
+
+        // 메시지 리스너에 전달
+        OnMessageReceviedListener currentMessageListener = messageListener;
+        if (currentMessageListener != null) {
+            currentMessageListener.onMessageReceived(line.toString());
+        }
+    }
+
+    /**
+     * 협상 응답/확인 줄 처리 (수신 스레드)
+     */
+    private void handleNegotiationLine(LineView line) {
+        if (line.contentEquals(AuthRecord.NEGOTIATE_CONFIRM)) {
+            if (binaryMode) {
+                // 서버는 이 줄 다음부터 레코드로 보냄
+                binaryReceive = true;
+                Log.d(TAG, "바이너리 레코드 모드로 전환 완료");
+            } else {
+                Log.w(TAG, "확인 줄을 보내지 않았는데 받은 협상 확인 무시");
+            }
+            return;
+        }
+
+        boolean accepted = line.contentEquals(AuthRecord.NEGOTIATE_OK);
+        CompletableFuture<Boolean> pendingNegotiation = negotiation;
+        if (pendingNegotiation != null && finishNegotiation(pendingNegotiation, accepted)) {
+            Log.d(TAG, accepted ? "서버가 모드 협상 수락, 레코드로 전송" : "서버가 모드 협상 거절, 텍스트 모드 유지");
+        } else {
+            // 타임아웃 뒤에 온 응답: 확인 줄을 보내지 않으므로 서버도 텍스트 모드를 유지함
+            Log.w(TAG, "진행 중인 협상이 없는 협상 응답 무시: " + line);
+        }
+    }
+
+    /**
+     * 앞부분 바이트로 줄 종류 판별
+     */
+    private static int lineType(LineView line) {
+        if (line.startsWith("NonceS")) {
+            return LINE_NONCE_S;
+        }
+        if (line.startsWith("HMAC")) {
+            return LINE_HMAC;
+        }
+        if (line.equalsIgnoreCase("SUCCESS")) {
+            return LINE_SUCCESS;
+        }
+        if (line.equalsIgnoreCase("FAILED")) {
+            return LINE_FAILED;
+        }
+        return LINE_OTHER;
+    }
+
+    /**
+     * "#<id>" 또는 "#<id> <메시지>" 줄의 요청 ID (수신 버퍼에서 바로 읽음)
+     * @return 요청 ID, ID 형식이 아니면 -1 (일반 메시지로 처리)
+     */
+    private static long requestIdOf(LineView line) {
+        int length = line.length();
+        long requestId = 0;
+        int i = 1;
+        for (; i < length && line.byteAt(i) != ' '; i++) {
+            int digit = line.byteAt(i) - '0';
+            // long 범위를 넘는 ID 는 쓰지 않으므로 18자리까지만 받음
+            if (digit < 0 || digit > 9 || i > 18) {
+                return -1;
+            }
+            requestId = requestId * 10 + digit;
+        }
+        return i > 1 ? requestId : -1;
+    }
+
+    /**
+     * 메시지 전송 후 응답 대기
+     * @return 응답 메시지, 타임아웃/오류시 null
+     */
+    public String sendAndWaitForResponse(String message, int timeoutMs) {
+        if (!isConnected()) {
+            Log.e(TAG, "전송 실패: 연결되지 않음");
+            return null;
+        }
+
+        try {
+            return sendRequestAsync(message, timeoutMs).get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "응답 대기 실패: " + e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Log.e(TAG, "응답 대기 중 인터럽트 발생", e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 요청 ID 를 붙여 메시지 전송 (비동기)
+     * 수신 스레드가 같은 ID 의 응답을 읽는 즉시 future 를 완료하므로,
+     * 한 연결에서 여러 요청이 동시에 응답을 기다릴 수 있다.
+     * 연결에서 처음 받은 응답에 ID 가 없으면 ID 를 돌려주지 않는 서버로 보고, 그 연결에서는
+     * ID 없는 일반 줄을 가장 오래된 요청의 응답으로 맞춘다 (프로토콜 메시지 제외).
+     * @param message 보낼 메시지
+     * @param timeoutMs 응답 대기 시간
+     * @return 응답 메시지 (ID 접두사 제외) future, 타임아웃/연결 종료 시 예외로 완료
+     */
+    public CompletableFuture<String> sendRequestAsync(String message, long timeoutMs) {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        if (!isConnected()) {
+            future.completeExceptionally(new IOException("연결되지 않음"));
+            return future;
+        }
+
+        final long requestId;
+        synchronized (pending) {
+            requestId = nextRequestId++;
+            pending.put(requestId, future);
+        }
+
+        timeoutScheduler.schedule(() -> {
+            if (removePending(requestId) != null) {
+                future.completeExceptionally(new TimeoutException("응답 타임아웃 (id " + requestId + ")"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        sendMessage(REQUEST_ID_PREFIX + Long.toString(requestId) + " " + message);
+        return future;
+    }
+
+    private CompletableFuture<String> removePending(long requestId) {
+        synchronized (pending) {
+            return pending.remove(requestId);
+        }
+    }
+
+    /**
+     * "#<id> " 로 시작하는 줄을 같은 ID 의 요청과 맞춤 (수신 스레드)
+     * 응답 String 은 기다리는 요청이 있을 때만 만든다.
+     * @return 요청의 응답으로 처리했으면 true (리스너에 전달하지 않음)
+     */
+    private boolean completeTaggedRequest(long requestId, LineView line) {
+        if (replyStyle == REPLY_UNKNOWN) {
+            replyStyle = REPLY_TAGGED;
+        }
+        CompletableFuture<String> future = removePending(requestId);
+        if (future == null) {
+            // 타임아웃된 요청의 늦은 응답
+            if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+                Log.d(TAG, "대기 중이 아닌 요청의 응답 버림: " + line);
+            }
+        } else {
+            int space = line.indexOf(' ');
+            future.complete(space < 0 ? "" : line.subSequence(space + 1, line.length()).toString());
+        }
+        return true;
+    }
+
+    /**
+     * ID 를 돌려주지 않는 서버의 응답을 가장 오래된 요청에 전달 (수신 스레드)
+     * 기다리는 요청이 없으면 String 을 만들지 않는다.
+     * @return 요청의 응답으로 처리했으면 true (리스너에 전달하지 않음)
+     */
+    private boolean completeOldestRequest(LineView line) {
+        CompletableFuture<String> oldest = null;
+        synchronized (pending) {
+            Iterator<Map.Entry<Long, CompletableFuture<String>>> it = pending.entrySet().iterator();
+            if (it.hasNext()) {
+                oldest = it.next().getValue();
+                it.remove();
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        if (replyStyle == REPLY_UNKNOWN) {
+            replyStyle = REPLY_UNTAGGED;
+            Log.d(TAG, "요청 ID 를 돌려주지 않는 서버, 보낸 순서대로 응답을 맞춤");
+        }
+        oldest.complete(line.toString());
+        return true;
+    }
+
+    /**
+     * 응답을 기다리는 요청을 모두 실패 처리하고 진행 중인 협상을 취소 (연결 종료 시)
+     */
+    protected void failPendingRequests(Exception cause) {
+        cancelNegotiation();
+        List<CompletableFuture<String>> failed;
+        synchronized (pending) {
+            failed = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (CompletableFuture<String> future : failed) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    // 저장된 서버 NonceS 값 반환
+    public byte[] getServerNonce() {
+        return serverNonce;
+    }
+
+    // 저장된 서버 HMAC 값 반환
+    public byte[] getServerHmac() {
+        return serverHmac;
+    }
+
+    // 저장된 클라이언트 NonceC 값 반환
+    public byte[] getClientNonce() {
+        return this.clientNonce;
+    }
+
+    // 메시지 리스너 getter
+    public OnMessageReceviedListener getMessageListener() {
+        return messageListener;
+    }
+
+    // 메시지 리스너 setter
+    public void setMessageListener(OnMessageReceviedListener listener) {
+        this.messageListener = listener;
+    }
+
+    // 수신 줄 리스너 setter
+    public void setLineListener(OnLineReceivedListener listener) {
+        this.lineListener = listener;
+    }
+
+    // 바이너리 레코드 리스너 setter
+    public void setRecordListener(OnRecordReceivedListener listener) {
+        this.recordListener = listener;
+    }
+
+    // 클라이언트 NonceC 설정 메서드
+    public void setClientNonce(byte[] nonce) {
+        this.clientNonce = nonce;
+        Log.d(TAG, "클라이언트 NonceC 설정 완료: 길이=" + (nonce != null ? nonce.length : 0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.tcp_ip_client;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 인증 프로토콜 바이너리 레코드 (TLV)
+ *
+ * 레코드 = [타입 1바이트][길이 2바이트 (빅엔디안)][값]
+ * NonceC/NonceS/HMAC 은 16진수 문자열 대신 원본 바이트로 보낸다.
+ *
+ * 텍스트 모드로 연결한 뒤 아래 순서로 협상한다 (모두 텍스트 줄).
+ * 1. 클라이언트: NEGOTIATE
+ * 2. 서버: 수락하면 NEGOTIATE_OK, 거절하면 NEGOTIATE 로 시작하는 다른 줄. 수락해도 아직 텍스트로 주고받는다.
+ * 3. 클라이언트: 정해진 시간 안에 수락을 받으면 NEGOTIATE_CONFIRM 을 보내고 그 다음 바이트부터 레코드로 보낸다.
+ *    시간 안에 응답이 없으면 확인 줄을 보내지 않고 텍스트 모드를 유지하며, 늦게 온 수락은 무시한다.
+ * 4. 서버: NEGOTIATE_CONFIRM 다음 바이트부터 레코드로 읽고, NEGOTIATE_CONFIRM 줄을 돌려보낸 다음부터 레코드로 보낸다.
+ *    수락한 뒤 확인 줄 대신 다른 줄을 받으면 텍스트 모드를 유지한다.
+ * 양쪽 모두 상대가 바꾼다고 알린 줄을 보고 나서만 읽는 형식을 바꾸므로, 타임아웃이 나도 형식이 어긋나지 않는다.
+ */
+public final class AuthRecord {
+    // 바이너리 모드 협상 요청/응답 (텍스트 줄)
+    public static final String NEGOTIATE = "PROTO BIN1";
+    public static final String NEGOTIATE_OK = "PROTO BIN1 OK";
+    // 클라이언트 확인 (서버는 같은 줄을 돌려보낸 뒤 레코드로 바꿈)
+    public static final String NEGOTIATE_CONFIRM = "PROTO BIN1 ON";
+
+    // 텍스트 메시지 (UTF-8), 텍스트 모드의 한 줄과 같음
+    public static final int TEXT = 0x01;
+    public static final int NONCE_C = 0x10;
+    public static final int NONCE_S = 0x11;
+    public static final int HMAC = 0x12;
+    // 인증 결과: 값 1바이트 (RESULT_SUCCESS / RESULT_FAILED)
+    public static final int AUTH_RESULT = 0x20;
+
+    public static final int RESULT_SUCCESS = 0x00;
+    public static final int RESULT_FAILED = 0x01;
+
+    public static final int HEADER_SIZE = 3;
+    public static final int MAX_VALUE_SIZE = 0xFFFF;
+
+    private AuthRecord() {
+    }
+
+    /**
+     * 레코드 생성
+     */
+    public static byte[] encode(int type, byte[] value) {
+        return encode(type, value, 0, value.length);
+    }
+
+    /**
+     * 레코드 생성
+     */
+    public static byte[] encode(int type, byte[] value, int offset, int length) {
+        if (length > MAX_VALUE_SIZE) {
+            throw new IllegalArgumentException("레코드 최대 길이 초과: " + length);
+        }
+        byte[] record = new byte[HEADER_SIZE + length];
+        record[0] = (byte) type;
+        record[1] = (byte) ((length >> 8) & 0xFF);
+        record[2] = (byte) (length & 0xFF);
+        System.arraycopy(value, offset, record, HEADER_SIZE, length);
+        return record;
+    }
+
+    /**
+     * 텍스트 레코드 생성
+     */
+    public static byte[] text(String message) {
+        return encode(TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * buffer[offset] 부터 시작하는 레코드의 전체 길이
+     * @return 레코드 길이, 헤더가 아직 다 오지 않았으면 -1
+     */
+    public static int recordLength(byte[] buffer, int offset, int available) {
+        if (available < HEADER_SIZE) {
+            return -1;
+        }
+        return HEADER_SIZE + (((buffer[offset + 1] & 0xFF) << 8) | (buffer[offset + 2] & 0xFF));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.tcp_ip_client;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEA 데이터 (0xBA) 응답 뷰
+ */
+public class CipherResponse extends QsimResponse {
+
+    public CipherResponse(byte[] frame) {
+        super(frame);
+        expect(QsimCommand.LEA_DATA);
+    }
+
+    /**
+     * 요청한 길이만큼 왔는지 확인
+     * @throws IllegalStateException 길이가 다를 때
+     */
+    public CipherResponse expectLength(int length) {
+        if (payloadLength() != length) {
+            throw new IllegalStateException("암호화 응답 길이 불일치 (필요: " + length + ", 실제: " + payloadLength() + ")");
+        }
+        return this;
+    }
+
+    /**
+     * 암호문 슬라이스
+     */
+    public ByteBuffer ciphertext() {
+        return payload();
+    }
+}
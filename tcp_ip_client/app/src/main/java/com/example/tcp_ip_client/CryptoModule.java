@@ -9,8 +9,18 @@ import android.widget.Toast;
 
 import com.hoho.android.usbserial.driver.UsbSerialPort;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.spec.ECField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 public class CryptoModule {
     private static final String TAG = "CryptoModule";
@@ -25,15 +35,49 @@ public class CryptoModule {
 
     private MessageCallback messageCallback;
 
-    // 명령 코드
-    private static final byte CMD_VERSION = (byte)0x01; // Version 명령 코드
-    private static final byte CMD_LEA_128_ECB_ENCRYPT = (byte)0x03; // 로그에서 확인된 명령 코드
+    // 프레임 형식은 QsimCommand 에 정의
+    // QSIM 에 설정된 모드 식별용 (LEA-128-ECB)
+    private static final byte MODE_LEA_128_ECB = (byte)0x03;
+
+    // PSK 저장/불러오기에 사용하는 기본 슬롯
+    private static final int PSK_SLOT = 0x01;
+
+    // 장치 슬롯의 PSK 영역 크기와 그 안에 저장하는 PSK 크기
+    // 장치는 불러오기 응답에서 영역 전체를 돌려주고 PSK 길이는 알려주지 않으므로 PSK 는 32바이트로 고정한다.
+    private static final int PSK_AREA_SIZE = 256;
+    private static final int PSK_SIZE = 32;
 
     // 최대 데이터 크기
-    private static final int MAX_DATA_SIZE = 1500;
+    static final int MAX_DATA_SIZE = 1500;
+
+    // LEA 블록 크기, 데이터 프레임 하나에 담을 수 있는 최대 암호화 데이터 (1488바이트)
+    static final int LEA_BLOCK_SIZE = 16;
+    static final int MAX_LEA_FRAME_DATA = (MAX_DATA_SIZE / LEA_BLOCK_SIZE) * LEA_BLOCK_SIZE;
+
+    // 설정된 모드 없음
+    private static final byte MODE_NONE = (byte)0x00;
+
+    // QSIM 에 현재 설정된 키 지문/모드 (deviceStateLock 으로 보호)
+    private final Object deviceStateLock = new Object();
+    private byte[] loadedKeyFingerprint;
+    private byte loadedMode = MODE_NONE;
+    // 마지막으로 예약된 LEA 연산
+    private CompletableFuture<?> leaTail = CompletableFuture.completedFuture(null);
+    // 읽어 온 PSK (setpskData, close 시 무효화)
+    private final PskCache pskCache = new PskCache();
+    // 앱이 키를 가진 LEA 요청을 QSIM/소프트웨어로 나누는 스케줄러
+    private final LeaScheduler leaScheduler;
 
     public CryptoModule(Context context, CryptoSerial serial) {
         this.serial = serial;
+        this.leaScheduler = new LeaScheduler(this);
+    }
+
+    /**
+     * LEA-128-ECB 스케줄러 (경로별 지연 통계를 이 모듈의 호출끼리 공유)
+     */
+    public LeaScheduler getLeaScheduler() {
+        return leaScheduler;
     }
 
     /**
@@ -53,6 +97,27 @@ public class CryptoModule {
         }
     }
 
+    /**
+     * 요청/응답 프레임 출력
+     * 추적 기록(TraceLog)에는 항상 남기고, 16진수 문자열은 DEBUG 레벨일 때만 만들어 출력한다.
+     */
+    private void displayFrame(String label, byte[] frame) {
+        displayFrame(label, frame, frame.length);
+    }
+
+    /**
+     * 요청/응답 프레임 앞 limit 바이트만 출력 (키/PSK 가 들어 있는 프레임)
+     */
+    private void displayFrame(String label, byte[] frame, int limit) {
+        TraceLog.frame(TraceLog.INFO, TAG, label, frame, limit);
+        if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+            String hex = limit < frame.length
+                    ? TraceLog.hex(Arrays.copyOf(frame, limit)) + ".."
+                    : TraceLog.hex(frame);
+            displayMessage(label + " [" + frame.length + "] = " + hex);
+        }
+    }
+
     /**
      * QSIM 장치 초기화
      * @return 성공 여부
@@ -79,76 +144,63 @@ public class CryptoModule {
     }
 
     /**
- * 버전 정보 조회
- * @return 버전 정보 바이트 배열, 오류시 null
- */
-public byte[] getVersion() {
-    if (serial == null) {
-        displayMessage("암호모듈 초기화되지 않음.");
-        return null;
+     * 버전 정보 조회
+     * @return 버전 정보 바이트 배열, 오류시 null
+     */
+    public byte[] getVersion() {
+        if (serial == null) {
+            displayMessage("암호모듈 초기화되지 않음.");
+            return null;
+        }
+        return await(getVersionAsync(), "버전 에러 : ");
+    }
+
+    /**
+     * 버전 정보 조회 (비동기)
+     * @return 버전 정보 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<byte[]> getVersionAsync() {
+        return getVersionViewAsync().thenApply(response -> {
+            // 버전 정보 추출 (5번째 바이트 부터 payloadLength 만큼)
+            byte[] versionInfo = response.toPayloadArray();
+            if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+                displayMessage("VERSION [" + versionInfo.length + "] = " + bytesToHex(versionInfo));
+            }
+            return versionInfo;
+        });
     }
 
-    try {
+    /**
+     * 버전 정보 조회 (비동기, 복사 없이 응답 프레임 뷰로 반환)
+     * @return 버전 응답 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<VersionResponse> getVersionViewAsync() {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("암호모듈 초기화되지 않음."));
+        }
+
         displayMessage("==========================================");
         displayMessage("VERSION");
 
-        // 버전 정보 요청
-        byte[] versionRequest = new byte[8];
-        versionRequest[0] = (byte)0xD4;
-        versionRequest[1] = CMD_VERSION;
-        versionRequest[2] = (byte)0x00;
-        versionRequest[3] = (byte)0x00;
-        versionRequest[4] = (byte)0x00;
-        versionRequest[5] = (byte)0x65;
-        versionRequest[6] = (byte)0xE0;
-        versionRequest[7] = (byte)0xD8;
-
-        displayMessage("RQ [8]  = " + bytesToHex(versionRequest));
-        
+        // 버전 정보 요청 (고정 프레임)
+        byte[] versionRequest = QsimCommand.VERSION.template();
+
+        displayFrame("RQ", versionRequest);
+
         // 요청 전송 및 응답 수신
-        byte[] versionResponse = serial.sendRequest(versionRequest);
-        
-        // 응답 검증
-        if (versionResponse == null) {
-            displayMessage("Version Request Failed: 응답이 null입니다");
-            return null;
-        }
-        
-        if (versionResponse.length < 5) {
-            displayMessage("Version Request Failed: 응답 길이가 부족합니다 (최소 5바이트 필요)");
-            return null;
-        }
-        
-        displayMessage("RS [" + versionResponse.length + "] = " + bytesToHex(versionResponse));
+        return serial.sendRequestAsync(versionRequest).thenApply(this::parseVersionResponse);
+    }
 
-        // 버전 정보 길이 추출
-        int versionLength = versionResponse[4] & 0xFF;
-        displayMessage("버전 정보 길이: " + versionLength + " 바이트");
-        
-        // 버전 정보가 있고 응답 길이가 충분한지 확인
-        if (versionLength <= 0) {
-            displayMessage("Invalid version response: 버전 길이가 0 이하입니다");
-            return null;
-        }
-        
-        if (versionResponse.length < versionLength + 5) {
-            displayMessage("Invalid version response: 응답 길이가 부족합니다 (필요: " + (versionLength + 5) + ", 실제: " + versionResponse.length + ")");
-            return null;
-        }
-        
-        // 버전 정보 추출 (5번째 바이트 부터 versionLength 만큼)
-        byte[] versionInfo = new byte[versionLength];
-        System.arraycopy(versionResponse, 5, versionInfo, 0, versionLength);
+    private VersionResponse parseVersionResponse(byte[] versionResponse) {
+        // 응답 검증 (길이 필드, 버전 길이 0 이하)
+        VersionResponse response = new VersionResponse(versionResponse);
 
-        displayMessage("VERSION [" + versionLength + "] = " + bytesToHex(versionInfo));
+        displayFrame("RS", versionResponse);
+        displayMessage("버전 정보 길이: " + response.payloadLength() + " 바이트");
         displayMessage("==========================================");
 
-        return versionInfo;
-    } catch (Exception e) {
-        displayMessage("버전 에러 : " + e.getMessage());
-        return null;
+        return response;
     }
-}
 
     /**
      *  LEA-128-ECB 암호화
@@ -162,9 +214,45 @@ public byte[] getVersion() {
             displayMessage("CryptoSerial is not initialized");
             return null;
         }
+        return await(encryptLea128EcbAsync(key, data), "Encryption error: ");
+    }
 
-        try {
-            displayMessage("LEA-128-ECB");
+    /**
+     *  LEA-128-ECB 암호화 (비동기)
+     *  키 설정 -> 모드 설정 -> 데이터 암호화 요청을 차례로 이어서 보낸다.
+     *  QSIM 에 이미 같은 키/모드가 설정되어 있으면 해당 설정 요청은 생략한다.
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터
+     * @return 암호화된 데이터 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<byte[]> encryptLea128EcbAsync(final byte[] key, final byte[] data) {
+        return encryptLea128EcbViewAsync(key, data).thenApply(response -> {
+            // 암호화 결과 추출 (헤더 5바이트 제외)
+            byte[] result = response.toPayloadArray();
+            if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+                displayMessage("LEA-128-ECB encryption [16] = " + bytesToHex(result));
+            }
+            return result;
+        });
+    }
+
+    /**
+     *  LEA-128-ECB 암호화 (비동기, 복사 없이 응답 프레임 뷰로 반환)
+     *  암호문은 CipherResponse.ciphertext() 슬라이스로 읽는다.
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터
+     * @return 암호화 응답 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<CipherResponse> encryptLea128EcbViewAsync(final byte[] key, final byte[] data) {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("CryptoSerial is not initialized"));
+        }
+        if (key == null || key.length < LEA_BLOCK_SIZE) {
+            return failedFuture(new IllegalArgumentException("키 길이 오류: 16바이트 필요"));
+        }
+        if (data == null || data.length < LEA_BLOCK_SIZE) {
+            return failedFuture(new IllegalArgumentException("데이터 길이 오류: 16바이트 필요"));
+        }
 
 //            LEA-128-ECB
 //            RQ [24] = D43424001000112233445566778899AABBCCDDEEFF23A4D8
@@ -175,145 +263,255 @@ public byte[] getVersion() {
 //            RS [24] = D4BA2D0010C92ED5DDB2448EC936CA33088D204032CBE4D8
 //            LEA-128-ECB encryption [16] = C92ED5DDB2448EC936CA33088D204032
 
-            // 1단계: 키 설정 요청
-            byte[] keyRequest = new byte[24]; // 헤더(2) + 길이(1) + 키(16) + 체크섬(4)
-            keyRequest[0] = (byte)0xD4;  // 헤더
-            keyRequest[1] = (byte)0x34;  // 키 설정 명령
-            keyRequest[2] = (byte)0x24;  // 길이 상위 바이트
-            keyRequest[3] = (byte)0x00; // 길이 하위 바이트
-            keyRequest[4] = (byte)0x10;
-            // 키 요청의 키 값을 복사진행.
-            System.arraycopy(key, 0, keyRequest, 5, 16);  // 키 복사
-
-            // 체크섬 계산 (실제 구현에서는 적절한 체크섬 계산 필요)
-            keyRequest[21] = (byte)0x23;
-            keyRequest[22] = (byte)0xA4;
-            keyRequest[23] = (byte)0xD8;
-
-            // 키 설정 요청 전송 및 응답 수신
-            displayMessage("RQ [24] = " + bytesToHex(keyRequest));
-            byte[] keyResponse = serial.sendRequest(keyRequest);
-
-            if (keyResponse != null) {
-                displayMessage("RS [" + keyResponse.length + "] = " + bytesToHex(keyResponse));
-            }
-            else {
-                displayMessage("키 설정 응답 없음");
-                return null;
-            }
+        final byte[] keyFingerprint = fingerprint(key);
 
+        // RQ [24] = 800000000000000000000000000000008890D8
 
-            // RQ [11] = D4392D0003454342A2BCD8
-            // 2단계: 암호화 명령 설정 요청
-            byte[] cmdRequest = new byte[11]; // 헤더(2) + 길이(2) + 명령(1) + 파라미터(3) + 체크섬(3)
-            cmdRequest[0] = (byte)0xD4;  // 헤더
-            cmdRequest[1] = (byte)0x39;  // 명령 설정
-            cmdRequest[2] = (byte)0x2D;  // 길이
-            cmdRequest[3] = (byte)0x00; // 길이
-            cmdRequest[4] = CMD_LEA_128_ECB_ENCRYPT; // 암호화 명령
-            cmdRequest[5] = (byte)0x45;  // 추가 파라미터 (로그에서 확인)
-            cmdRequest[6] = (byte)0x43;  // 추가 파라미터 (로그에서 확인)
-            cmdRequest[7] = (byte)0x42;  // 추가 파라미터 (로그에서 확인)
-            // 체크섬 계산 (실제 구현에서는 적절한 체크섬 계산 필요)
-            cmdRequest[8] = (byte)0xA2;
-            cmdRequest[9] = (byte)0xBC;
-            cmdRequest[10] = (byte)0xD8;
-
-            // 암호화 명령 설정 요청 전송 및 응답 수신
-            displayMessage("RQ [11] = " + bytesToHex(cmdRequest));
-            byte[] cmdResponse = serial.sendRequest(cmdRequest);
-
-            if (cmdResponse != null) {
-                displayMessage("RS [" + cmdResponse.length + "] = " + bytesToHex(cmdResponse));
-            }
-            else {
-                displayMessage("명령 설정 응답 없음");
-                return null;
-            }
+        // 3단계: 데이터 암호화 요청
+        final byte[] dataRequest = buildLeaDataRequest(data, 0, LEA_BLOCK_SIZE);
 
-            // RQ [24] = 800000000000000000000000000000008890D8
-
-            // 3단계: 데이터 암호화 요청
-            byte[] dataRequest = new byte[24]; // 헤더(2) + 길이(1) + 데이터(16) + 체크섬(5)
-            dataRequest[0] = (byte)0xD4;  // 헤더
-            dataRequest[1] = (byte)0x3A;  // 데이터 암호화 명령
-            dataRequest[2] = (byte)0x2D;  // 데이터 길이 (16바이트)
-            dataRequest[3] = (byte)0x00;
-            dataRequest[4] = (byte)0x10;
-            // data 배열의 0번 부터 뒤에 인자의 5번째부터 16바이트 복사 하겠다는 의미임.
-            // data 0부터 16바이트를 5번째 부터 복사하겠단느 뜻.
-            System.arraycopy(data, 0, dataRequest, 5, 16);  // 데이터 복사
-
-            // 체크섬 계산 (실제 구현에서는 적절한 체크섬 계산 필요)
-            dataRequest[21] = (byte)0x88;
-            dataRequest[22] = (byte)0x90;
-            dataRequest[23] = (byte)0xD8;
-
-            // 데이터 암호화 요청 전송 및 응답 수신
-            displayMessage("RQ [24] = " + bytesToHex(dataRequest));
-            byte[] dataResponse = serial.sendRequest(dataRequest);
-
-            if (dataResponse == null) {
-                displayMessage("암호화 응답 없음");
-                return null;
-            }
+        return runLeaSequentially(() -> {
+            displayMessage("LEA-128-ECB");
+            return prepareLea128Ecb(key, keyFingerprint).thenCompose(ready -> {
+                // 데이터 암호화 요청 전송 및 응답 수신
+                displayFrame("RQ", dataRequest);
+                return serial.sendRequestAsync(dataRequest);
+            }).thenApply(dataResponse -> {
+                // 응답 검증 (길이 필드가 16바이트인지)
+                CipherResponse response = new CipherResponse(dataResponse).expectLength(LEA_BLOCK_SIZE);
+                displayFrame("RS", dataResponse);
+                return response;
+            });
+        });
+    }
 
-            displayMessage("RS [" + dataResponse.length + "] = " + bytesToHex(dataResponse));
+    /**
+     *  LEA-128-ECB 대량 암호화
+     *  16바이트 블록을 데이터 프레임 하나에 최대한 채워 보내고, 넘치면 프레임 단위로 나눈다.
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터 (16바이트 배수)
+     * @return 암호화된 데이터, 오류시 null
+     */
+    public byte[] encryptLea128EcbBulk(byte[] key, byte[] data) {
+        if (serial == null) {
+            Log.e(TAG, "CryptoSerial is not initialized");
+            displayMessage("CryptoSerial is not initialized");
+            return null;
+        }
+        return await(encryptLea128EcbBulkAsync(key, data), "Encryption error: ");
+    }
+
+    /**
+     *  LEA-128-ECB 대량 암호화 (비동기)
+     *  키/모드 설정은 한 번만 하고, 데이터 프레임은 응답을 기다리지 않고 윈도우 크기만큼 연달아 보낸다.
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터 (16바이트 배수)
+     * @return 암호화된 데이터 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<byte[]> encryptLea128EcbBulkAsync(final byte[] key, final byte[] data) {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("CryptoSerial is not initialized"));
+        }
+        if (key == null || key.length < LEA_BLOCK_SIZE) {
+            return failedFuture(new IllegalArgumentException("키 길이 오류: 16바이트 필요"));
+        }
+        if (data == null || data.length % LEA_BLOCK_SIZE != 0) {
+            return failedFuture(new IllegalArgumentException("데이터 길이가 16바이트 배수가 아닙니다"));
+        }
 
-            // 암호화 결과 추출 (헤더 3바이트 제외)
-            byte[] result = new byte[16];  // 암호화 결과는 16바이트
-            System.arraycopy(dataResponse, 5, result, 0, 16);
+        final byte[] keyFingerprint = fingerprint(key);
+        final byte[] result = new byte[data.length];
 
-            // 결과 로그 출력
-            displayMessage("LEA-128-ECB encryption [16] = " + bytesToHex(result));
+        return runLeaSequentially(() -> {
+            int frameCount = (data.length + MAX_LEA_FRAME_DATA - 1) / MAX_LEA_FRAME_DATA;
+            displayMessage("LEA-128-ECB bulk [" + data.length + "], frames = " + frameCount);
+            return prepareLea128Ecb(key, keyFingerprint)
+                    .thenCompose(ready -> encryptLeaFrames(data, result))
+                    .thenApply(done -> result);
+        });
+    }
 
-            return result;
-        } catch (Exception e) {
-            Log.e(TAG, "Encryption error: " + e.getMessage(), e);
-            displayMessage("Encryption error: " + e.getMessage());
-            return null;
+    /**
+     * 데이터 프레임을 모두 파이프라인 큐에 넣고, 응답은 보낸 순서대로 result 에 조립
+     */
+    private CompletableFuture<Void> encryptLeaFrames(final byte[] data, final byte[] result) {
+        List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += MAX_LEA_FRAME_DATA) {
+            final int frameOffset = offset;
+            final int length = Math.min(MAX_LEA_FRAME_DATA, data.length - offset);
+            byte[] dataRequest = buildLeaDataRequest(data, offset, length);
+            TraceLog.event(TraceLog.INFO, TAG, "RQ data offset", offset);
+            displayFrame("RQ", dataRequest, QsimCommand.HEADER_SIZE);
+
+            // 요청 배열은 전송 후 I/O 스레드가 풀에 반납, 응답 배열은 복사 후 여기서 반납
+            responses.add(serial.sendPooledRequestPipelinedAsync(dataRequest).thenApply(dataResponse -> {
+                try {
+                    copyLeaResult(dataResponse, length, result, frameOffset);
+                } finally {
+                    QsimBufferPool.shared().release(dataResponse);
+                }
+                return null;
+            }));
         }
+        return CompletableFuture.allOf(responses.toArray(new CompletableFuture[0]));
     }
 
     /**
-     *  Random 값 가져오기
-     * @param length 생설한 난수의 바이트 길이
-     * @return 생성된 난수, 오류시 null
+     * LEA 데이터 프레임 파이프라인 윈도우 설정
+     * @param size 동시에 응답을 기다릴 최대 데이터 프레임 수 (1 이면 한 프레임씩 주고받음)
      */
-    public byte[] generateRandom(int length) {
-        if (serial == null) {
-            displayMessage("CryptoSerial 초기화 안됨");
-            return null;
+    public void setLeaPipelineWindow(int size) {
+        if (serial != null) {
+            serial.setPipelineWindow(size);
         }
-        try {
-            displayMessage("Start Random Generation");
+    }
 
-            // 난수 생성 요청 패킷 구성
-            byte[] request = new byte[8];
-            // 일단 임시로.
-            request[0] = (byte)0xD4; //헤더
+    /**
+     * 데이터 암호화 요청 프레임 구성
+     * 헤더(1) + 명령(1) + 파라미터(1) + 길이(2) + 데이터 + 체크섬(2) + 테일(1)
+     */
+    private static byte[] buildLeaDataRequest(byte[] data, int offset, int length) {
+        return QsimCommand.LEA_DATA.encode(data, offset, length);
+    }
 
-            // 요청 로그 출력
-            displayMessage("RQ [8] = " + bytesToHex(request));
+    /**
+     * 데이터 암호화 응답에서 결과를 꺼내 result 의 offset 위치에 복사
+     */
+    private void copyLeaResult(byte[] dataResponse, int length, byte[] result, int offset) {
+        CipherResponse response = new CipherResponse(dataResponse).expectLength(length);
+        displayFrame("RS", dataResponse, QsimCommand.HEADER_SIZE);
+        response.copyPayload(result, offset);
+    }
 
-            // 요청 전송 및 응답 수신
-            byte[] response = serial.sendRequest(request);
+    /**
+     * LEA-128-ECB 키/모드 설정
+     * 캐시된 장치 상태와 같으면 요청을 보내지 않는다.
+     * runLeaSequentially 안에서만 호출해야 함
+     */
+    private CompletableFuture<Void> prepareLea128Ecb(byte[] key, final byte[] keyFingerprint) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
 
-            // 응답 검증
-            if (response == null){
-                displayMessage("난수 생성 실패 : 응답이 null 입니다.");
-                return null;
-            }
+        if (!isKeyLoaded(keyFingerprint)) {
+            // 1단계: 키 설정 요청
+            final byte[] keyRequest = QsimCommand.LEA_KEY.encode(key, 0, LEA_BLOCK_SIZE);
+
+            chain = chain.thenCompose(v -> {
+                // 키 설정 요청 전송 및 응답 수신
+                displayFrame("RQ", keyRequest, QsimCommand.HEADER_SIZE);
+                return serial.sendRequestAsync(keyRequest);
+            }).thenAccept(keyResponse -> {
+                if (keyResponse == null) {
+                    throw new IllegalStateException("키 설정 응답 없음");
+                }
+                displayFrame("RS", keyResponse);
+                QsimResponse.of(QsimCommand.LEA_KEY, keyResponse);
+                synchronized (deviceStateLock) {
+                    loadedKeyFingerprint = keyFingerprint;
+                }
+            });
+        }
 
-            // 응답 로그 출력
-            displayMessage("RS [" + response.length + "] = " + bytesToHex(response));
+        if (!isModeLoaded(MODE_LEA_128_ECB)) {
+            // RQ [11] = D4392D0003454342A2BCD8
+            // 2단계: 암호화 명령 설정 요청
+            final byte[] cmdRequest = QsimCommand.LEA_MODE_ECB.template();
+
+            chain = chain.thenCompose(v -> {
+                // 암호화 명령 설정 요청 전송 및 응답 수신
+                displayFrame("RQ", cmdRequest);
+                return serial.sendRequestAsync(cmdRequest);
+            }).thenAccept(cmdResponse -> {
+                if (cmdResponse == null) {
+                    throw new IllegalStateException("명령 설정 응답 없음");
+                }
+                displayFrame("RS", cmdResponse);
+                QsimResponse.of(QsimCommand.LEA_MODE_ECB, cmdResponse);
+                synchronized (deviceStateLock) {
+                    loadedMode = MODE_LEA_128_ECB;
+                }
+            });
+        }
 
-            // 난수 데이터 추출 해서 return randomData 해주면 될듯.
+        return chain;
+    }
 
-        } catch (Exception e) {
+    /**
+     * LEA 연산을 앞선 연산이 끝난 뒤에 이어서 실행
+     * 키/모드 설정 -> 데이터 요청 사이에 다른 호출의 설정 요청이 끼어들지 않도록 한다.
+     * 연산이 실패하면 장치 상태를 알 수 없으므로 캐시를 비운다.
+     */
+    private <T> CompletableFuture<T> runLeaSequentially(final Supplier<CompletableFuture<T>> operation) {
+        synchronized (deviceStateLock) {
+            CompletableFuture<T> result = leaTail
+                    .handle((r, e) -> null)
+                    .thenCompose(v -> operation.get())
+                    .whenComplete((r, e) -> {
+                        if (e != null) {
+                            invalidateDeviceState();
+                        }
+                    });
+            leaTail = result;
+            return result;
+        }
+    }
 
+    private boolean isKeyLoaded(byte[] keyFingerprint) {
+        synchronized (deviceStateLock) {
+            return loadedKeyFingerprint != null && MessageDigest.isEqual(loadedKeyFingerprint, keyFingerprint);
         }
+    }
+
+    private boolean isModeLoaded(byte mode) {
+        synchronized (deviceStateLock) {
+            return loadedMode == mode;
+        }
+    }
 
+    /**
+     * QSIM 으로 요청을 보낼 수 있는 상태인지 확인
+     */
+    public boolean isHardwareAvailable() {
+        CryptoSerial current = serial;
+        return current != null && current.getSerialPort() != null;
+    }
+
+    /**
+     * 캐시된 QSIM 키/모드 상태 비우기
+     * 장치 분리, close(), 요청 오류 시 호출되며 다음 연산은 키/모드를 다시 설정한다.
+     */
+    public void invalidateDeviceState() {
+        synchronized (deviceStateLock) {
+            loadedKeyFingerprint = null;
+            loadedMode = MODE_NONE;
+        }
+    }
+
+    /**
+     * 키 비교용 지문 (키 원본은 캐시에 보관하지 않음)
+     */
+    private static byte[] fingerprint(byte[] key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key, 0, 16);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     *  Random 값 가져오기
+     * QSIM 난수 명령 코드가 장치 문서로 확인되지 않아 장치에 요청을 보내지 않는다.
+     * 난수가 필요하면 EntropyPool 을 사용한다.
+     * @param length 생설한 난수의 바이트 길이
+     * @return 생성된 난수, 오류시 null (현재는 항상 null)
+     */
+    public byte[] generateRandom(int length) {
+        if (serial == null) {
+            displayMessage("CryptoSerial 초기화 안됨");
+            return null;
+        }
+        displayMessage("QSIM 난수 생성은 지원하지 않음 (명령 코드 미확인)");
         return null;
     }
 
@@ -344,137 +542,256 @@ public byte[] getVersion() {
 
     /**
      * PSK 저장
-//     * @param psk 저장할 psk 데이터
-     * @return true, 오류 발생 시 null
+     * @param psk 저장할 psk 데이터
+     * @return 성공 여부
      */
-    // byte[] psk
     public boolean setpskData(byte[] psk) {
+        return setpskData(PSK_SLOT, psk);
+    }
+
+    /**
+     * PSK 저장
+     * @param slot 슬롯 번호
+     * @param psk 저장할 psk 데이터 (32바이트)
+     * @return 성공 여부
+     */
+    public boolean setpskData(int slot, byte[] psk) {
         if (serial == null) {
             displayMessage("암호 모듈 초기화 오류");
             return false;
         }
-        // psk 000102030405060708090a0b0c0d0e0f 라고 가정
+        Boolean result = await(setpskDataAsync(slot, psk), "PSK save error: ");
+        return result != null && result;
+    }
 
-        // psk 306E538A29ADAB6E8FDD92C02101E9C2
-        try {
-            displayMessage("PSK Saving to qSIM");
+    /**
+     * PSK 저장 (비동기)
+     * @param psk 저장할 psk 데이터
+     * @return 저장 성공 여부 future
+     */
+    public CompletableFuture<Boolean> setpskDataAsync(byte[] psk) {
+        return setpskDataAsync(PSK_SLOT, psk);
+    }
 
-            // psk 자리수를 그냥 16바이트로 고정하고 진행.
-            // 1단계: 키 설정 요청
+    /**
+     * PSK 저장 (비동기)
+     * @param slot 슬롯 번호
+     * @param psk 저장할 psk 데이터 (32바이트)
+     * @return 저장 성공 여부 future
+     */
+    public CompletableFuture<Boolean> setpskDataAsync(int slot, byte[] psk) {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("암호 모듈 초기화 오류"));
+        }
+        Map<Integer, byte[]> single = new LinkedHashMap<>();
+        single.put(slot, psk);
+        return setpskDataBatchAsync(single);
+    }
+
+    /**
+     * 여러 슬롯 PSK 저장
+     * @param psks 슬롯 번호 -> psk 데이터
+     * @return 모두 성공하면 true
+     */
+    public boolean setpskDataBatch(Map<Integer, byte[]> psks) {
+        if (serial == null) {
+            displayMessage("암호 모듈 초기화 오류");
+            return false;
+        }
+        Boolean result = await(setpskDataBatchAsync(psks), "PSK save error: ");
+        return result != null && result;
+    }
 
-            // 000102030405060708090A0B0C0D0E0F0
-            byte[] pskSaveRequest = new byte[265];
-            pskSaveRequest[0] = (byte) 0xD4;
-            pskSaveRequest[1] = (byte) 0x19;
-            pskSaveRequest[2] = (byte) 0x00;
-            pskSaveRequest[3] = (byte) 0x01;
-            pskSaveRequest[4] = (byte) 0x01;
-            pskSaveRequest[5] = (byte) 0x01;
-
-             // 키 요청의 키 값을 복사진행.
-            System.arraycopy(psk, 0, pskSaveRequest, 6, 32);  // 키 복사
-
-            // [22] 부터 [261] 까지 전체 0
-            for(int i = 38; i <= 261; i++) {
-                pskSaveRequest[i] = (byte) 0x00;
+    /**
+     * 여러 슬롯 PSK 저장 (비동기)
+     * 저장 요청을 응답을 기다리지 않고 연달아 보내고 모든 응답이 오면 완료된다.
+     * @param psks 슬롯 번호 -> psk 데이터
+     * @return 모두 성공하면 true 인 future
+     */
+    public CompletableFuture<Boolean> setpskDataBatchAsync(Map<Integer, byte[]> psks) {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("암호 모듈 초기화 오류"));
+        }
+        for (Map.Entry<Integer, byte[]> entry : psks.entrySet()) {
+            byte[] psk = entry.getValue();
+            if (psk == null || psk.length != PSK_SIZE) {
+                return failedFuture(new IllegalArgumentException("PSK 길이 오류 (slot " + entry.getKey() + ")"));
             }
+        }
 
-            pskSaveRequest[262] = (byte) 0x55;
-            pskSaveRequest[263] = (byte) 0xCF;
-            pskSaveRequest[264] = (byte) 0xD8;
+        displayMessage("PSK Saving to qSIM [" + psks.size() + " slot]");
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (Map.Entry<Integer, byte[]> entry : psks.entrySet()) {
+            final int slot = entry.getKey();
+            // 저장 결과와 관계없이 슬롯 값이 바뀔 수 있으므로 먼저 무효화
+            pskCache.invalidate(slot);
+
+            byte[] pskSaveRequest = buildPskSaveRequest(slot, entry.getValue());
+            TraceLog.event(TraceLog.INFO, TAG, "RQ PSK save slot", slot);
+            displayFrame("RQ", pskSaveRequest, QsimCommand.HEADER_SIZE + 1);
+
+            results.add(serial.sendRequestPipelinedAsync(pskSaveRequest).thenApply(pskSaveResponse -> {
+                // 저장 중에 읽어 간 이전 값이 캐시에 남지 않도록 한 번 더 무효화
+                pskCache.invalidate(slot);
+                if (pskSaveResponse != null) {
+                    displayFrame("RS", pskSaveResponse);
+                    QsimResponse.of(QsimCommand.PSK_SAVE, pskSaveResponse);
+                    displayMessage("PSK 저장 성공 (slot " + slot + ")");
+                    return true;
+                }
+                displayMessage("PSK 저장 응답 없음 (slot " + slot + ")");
+                return false;
+            }));
+        }
 
-            displayMessage("RQ [265] = " + bytesToHex(pskSaveRequest));
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApply(done -> {
+            for (CompletableFuture<Boolean> result : results) {
+                if (!result.join()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
 
+    /**
+     * PSK 저장 요청 프레임
+     * 페이로드 = [슬롯][PSK 영역 256바이트], PSK 뒤는 0 으로 채운다.
+     */
+    private static byte[] buildPskSaveRequest(int slot, byte[] psk) {
+        byte[] area = new byte[PSK_AREA_SIZE];
+        System.arraycopy(psk, 0, area, 0, PSK_SIZE);
+        byte[] request = QsimCommand.PSK_SAVE.encode(slot, area, 0, PSK_AREA_SIZE);
+        Arrays.fill(area, (byte) 0);
+        return request;
+    }
 
+    /**
+     * PSK 불러오기
+     * @return psk 데이터, 오류 발생 시 null
+     */
+    public byte[] getpskData() {
+        return getpskData(PSK_SLOT);
+    }
 
+    /**
+     * PSK 불러오기
+     * @param slot 슬롯 번호
+     * @return psk 데이터, 오류 발생 시 null
+     */
+    public byte[] getpskData(int slot) {
+        if (serial == null) {
+            displayMessage("암호 모듈 초기화 오류");
+            return null;
+        }
+        return await(getpskDataAsync(slot), "PSK get error: ");
+    }
 
-            byte[] pskSaveResponse = serial.sendRequest(pskSaveRequest);
+    /**
+     * PSK 불러오기 (비동기)
+     * @return psk 데이터 future, 오류 발생 시 예외로 완료
+     */
+    public CompletableFuture<byte[]> getpskDataAsync() {
+        return getpskDataAsync(PSK_SLOT);
+    }
 
-            if (pskSaveResponse != null) {
-                displayMessage("RS [" + pskSaveResponse.length + "] = " + bytesToHex(pskSaveResponse));
-                displayMessage("PSK 저장 성공");
-            } else {
-                displayMessage("PSK 저장 응답 없음");
-                return false;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "PSK save error: " + e.getMessage(), e);
-            displayMessage("PSK save error: " + e.getMessage());
-            return false;
-        }
-        return true;
+    /**
+     * PSK 불러오기 (비동기)
+     * @param slot 슬롯 번호
+     * @return psk 데이터 future, 오류 발생 시 예외로 완료
+     */
+    public CompletableFuture<byte[]> getpskDataAsync(final int slot) {
+        return getpskDataBatchAsync(slot).thenApply(psks -> psks.get(slot));
     }
 
     /**
-     * PSK 불러오기
-     * @return psk 데이터, 오류 발생 시 null
+     * 여러 슬롯 PSK 불러오기
+     * @param slots 슬롯 번호
+     * @return 슬롯 번호 -> psk 데이터, 오류 발생 시 null
      */
-    public byte[] getpskData() {
+    public Map<Integer, byte[]> getpskDataBatch(int... slots) {
         if (serial == null) {
             displayMessage("암호 모듈 초기화 오류");
             return null;
         }
-        try {
+        return await(getpskDataBatchAsync(slots), "PSK get error: ");
+    }
 
-            byte[] pskbringRequest = new byte[9];
-            pskbringRequest[0] = (byte) 0xD4;
-            pskbringRequest[1] = (byte) 0x1A;
-            pskbringRequest[2] = (byte) 0x00;
-            pskbringRequest[3] = (byte) 0x00;
-            pskbringRequest[4] = (byte) 0x01;
-            pskbringRequest[5] = (byte) 0x01;
-            pskbringRequest[6] = (byte) 0xCE;
-            pskbringRequest[7] = (byte) 0x3F;
-            pskbringRequest[8] = (byte) 0xD8;
-
-            displayMessage("RQ [9] = " + bytesToHex(pskbringRequest));
-
-            byte[] pskbringResponse = serial.sendRequest(pskbringRequest);
-
-            if (pskbringResponse != null) {
-                displayMessage("RS [" + pskbringResponse.length + "] = " + bytesToHex(pskbringResponse));
-                displayMessage("PSK Get Success");
-            } else {
-                displayMessage("PSK Get Response is null");
-                return null;
+    /**
+     * 여러 슬롯 PSK 불러오기 (비동기)
+     * 캐시에 없는 슬롯만 응답을 기다리지 않고 연달아 요청한다.
+     * @param slots 슬롯 번호
+     * @return 슬롯 번호 -> psk 데이터 future, 오류 발생 시 예외로 완료
+     */
+    public CompletableFuture<Map<Integer, byte[]>> getpskDataBatchAsync(int... slots) {
+        if (serial == null) {
+            return failedFuture(new IllegalStateException("암호 모듈 초기화 오류"));
+        }
+
+        // 슬롯 순서대로 캐시 값 또는 응답 future 를 담아 두고, 결과 맵은 모든 응답이 온 뒤에 만든다
+        final Map<Integer, CompletableFuture<byte[]>> requested = new LinkedHashMap<>();
+        for (final int slot : slots) {
+            // 캐시에 있으면 USB 왕복 생략
+            byte[] cached = pskCache.get(slot);
+            if (cached != null) {
+                displayMessage("PSK Get Success (cached, slot " + slot + ")");
+                requested.put(slot, CompletableFuture.completedFuture(cached));
+                continue;
             }
-            // PSK 임의로 고정적으로 그냥 00112233445566778899AABBCCDDEEFF
-            // 이후에 PSK만 추출해내야함.
-            // PSK 추출 로직.
+            final long generation = pskCache.generation();
 
+            byte[] pskbringRequest = QsimCommand.PSK_GET.template(slot);
 
-            int startIndex = 5;
-            int endIndex = pskbringResponse.length - 3;
+            displayFrame("RQ", pskbringRequest);
 
-            // PSK 데이터 길이를 먼저 추출하고 얼만큼 담을건지 정해야 하니까
-            int pskCount = 0;
+            requested.put(slot, serial.sendRequestPipelinedAsync(pskbringRequest).thenApply(response -> {
+                byte[] pskData = parsePskResponse(response, slot);
+                pskCache.put(slot, pskData, generation);
+                return pskData;
+            }));
+        }
 
-            for (int i = startIndex; i < endIndex; i++) {
-                if (pskbringResponse[i] != 0x00)
-                    pskCount++;
+        return CompletableFuture.allOf(requested.values().toArray(new CompletableFuture[0])).thenApply(done -> {
+            Map<Integer, byte[]> psks = new LinkedHashMap<>();
+            for (Map.Entry<Integer, CompletableFuture<byte[]>> entry : requested.entrySet()) {
+                psks.put(entry.getKey(), entry.getValue().join());
             }
+            return psks;
+        });
+    }
 
-            // PSK 데이터 담을 바이트 배열 변수 선언
-            byte[] pskData = new byte[pskCount];
-            int destIndex = 0;
+    private byte[] parsePskResponse(byte[] pskbringResponse, int slot) {
+        if (pskbringResponse != null) {
+            displayFrame("RS", pskbringResponse, QsimCommand.HEADER_SIZE + 1);
+        } else {
+            throw new IllegalStateException("PSK Get Response is null");
+        }
 
-            for (int i = startIndex; i < endIndex; i++) {
-                if(pskbringResponse[i] != 0x00) {
-                    pskData[destIndex++] = pskbringResponse[i];
-                }
-            }
+        // 페이로드 = [슬롯 1바이트][PSK]
+        // 0 을 건너뛰며 복사하면 0x00 이 들어있는 PSK 가 깨지므로 길이 필드로만 자른다.
+        QsimResponse response = QsimResponse.of(QsimCommand.PSK_GET, pskbringResponse);
+        int payloadLength = response.payloadLength();
 
-            displayMessage("Extracted PSK [" + pskCount + "] = " + bytesToHex(pskData));
-            displayMessage("PSK Get Success");
+        // 응답은 PSK 영역 전체(또는 PSK 만)이며 앞 32바이트가 PSK
+        int areaLength = payloadLength - 1;
+        if (areaLength != PSK_AREA_SIZE && areaLength != PSK_SIZE) {
+            throw new IllegalStateException("PSK 응답 길이 오류: " + payloadLength);
+        }
+        if ((response.payloadByte(0) & 0xFF) != (slot & 0xFF)) {
+            throw new IllegalStateException("PSK 응답 슬롯 불일치: " + (response.payloadByte(0) & 0xFF));
+        }
+        int pskLength = PSK_SIZE;
 
-            return pskData;
+        byte[] pskData = new byte[pskLength];
+        System.arraycopy(pskbringResponse, QsimCommand.HEADER_SIZE + 1, pskData, 0, pskLength);
 
-        } catch (Exception e) {
-            Log.e(TAG, "PSK save error: " + e.getMessage(), e);
-            displayMessage("PSK save error: " + e.getMessage());
-            return null;
+        if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+            displayMessage("Extracted PSK [" + pskLength + "] = " + bytesToHex(pskData));
         }
+        displayMessage("PSK Get Success");
 
+        return pskData;
     }
 
     /**
@@ -484,9 +801,36 @@ public byte[] getVersion() {
         if (serial != null) {
             serial.close();
         }
+        invalidateDeviceState();
+        pskCache.clear();
         isLoggedIn = false;
     }
 
+    /**
+     * 비동기 결과 대기
+     * @return 결과 값, 실패시 메시지 출력 후 null
+     */
+    private <T> T await(CompletableFuture<T> future, String errorPrefix) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Log.e(TAG, errorPrefix + cause.getMessage(), cause);
+            displayMessage(errorPrefix + cause.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            displayMessage(errorPrefix + "interrupted");
+            return null;
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
     /**
      * 16진수 문자열을 바이트 배열로 변환
      */
@@ -511,10 +855,6 @@ public byte[] getVersion() {
      * 바이트 배열을 16진수 문자열로 변환
      */
     private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
+        return TraceLog.hex(bytes);
     }
 }
\ No newline at end of file
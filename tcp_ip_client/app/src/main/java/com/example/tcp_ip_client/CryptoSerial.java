@@ -5,21 +5,29 @@ import android.util.Log;
 import com.hoho.android.usbserial.driver.UsbSerialPort;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class CryptoSerial {
     private static final String TAG = "CryptoSerial";
-    private static final int TIMEOUT = 2000; // 2초 타임아웃
 
     private UsbSerialPort serialPort;
+    // 포트를 단독으로 사용하는 I/O 스레드
+    private QsimCommandExecutor executor;
 
     public CryptoSerial(UsbSerialPort port) {
         this.serialPort = port;
+        if (port != null) {
+            executor = new QsimCommandExecutor(port);
+            executor.start();
+        }
     }
 
     /**
      * 요청을 보내고 응답을 받음
+     * 응답이 여러 USB 패킷으로 나뉘어 와도 0xD4 ~ 0xD8 프레임 하나가 완성될 때까지 모아서 반환한다.
      * @param request 요청 데이터
-     * @return 응답 데이터, 오류시 null
+     * @return 응답 프레임, 오류시 null
      */
     public byte[] sendRequest(byte[] request) {
         if (serialPort == null) {
@@ -28,47 +36,13 @@ public class CryptoSerial {
         }
 
         try {
-            // 기존 데이터 비우기
-            byte[] flushBuffer = new byte[1024];
-            int bytesRead;
-            
-            // 시리얼 포트에서 데이터를 계속 읽어서 버퍼를 비움
-            // 타임아웃을 짧게(10ms) 설정하여 빠르게 처리
-            // 더 이상 읽을 데이터가 없을 때까지(bytesRead <= 0) 반복
-            while ((bytesRead = serialPort.read(flushBuffer, 10)) > 0) {
-                Log.d(TAG, "버퍼 비우기: " + bytesRead + "바이트 제거");
-            }
-            
-            // 요청 전송
-            Log.d(TAG, "요청 전송: " + bytesToHex(request));
-            serialPort.write(request, TIMEOUT);
-            
-            // 응답 대기
-            long startTime = System.currentTimeMillis();
-            byte[] buffer = new byte[1024];
-            byte[] response = null;
-            
-            while (System.currentTimeMillis() - startTime < TIMEOUT) {
-                int len = serialPort.read(buffer, 100);
-                if (len > 0) {
-                    response = new byte[len];
-                    System.arraycopy(buffer, 0, response, 0, len);
-                    
-                    // 데이터 로깅
-                    Log.d(TAG, "데이터 수신: " + bytesToHex(response));
-                    
-                    break;  // 데이터를 받았으므로 루프 종료
-                }
-                
-                // 짧은 대기 시간
-                Thread.sleep(10);
-            }
-            
-            if (response == null) {
-                Log.e(TAG, "응답 타임아웃");
-            }
-            
+            TraceLog.frame(TraceLog.INFO, TAG, "요청 전송", request, QsimFrameDecoder.HEADER_SIZE);
+            byte[] response = sendRequestAsync(request).get();
+            TraceLog.frame(TraceLog.INFO, TAG, "데이터 수신", response, QsimFrameDecoder.HEADER_SIZE);
             return response;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error in sendRequest: " + e.getCause().getMessage(), e.getCause());
+            return null;
         } catch (Exception e) {
             Log.e(TAG, "Error in sendRequest: " + e.getMessage(), e);
             return null;
@@ -76,20 +50,78 @@ public class CryptoSerial {
     }
 
     /**
-     * 바이트 배열을 16진수 문자열로 변환
+     * 요청을 I/O 스레드 큐에 넣고 바로 반환
+     * @param request 요청 데이터
+     * @return 응답 프레임 future, 타임아웃/오류 시 예외로 완료
      */
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X ", b));
+    public CompletableFuture<byte[]> sendRequestAsync(byte[] request) {
+        QsimCommandExecutor current = executor;
+        if (current == null) {
+            CompletableFuture<byte[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("Serial port is not initialized"));
+            return failed;
+        }
+        return current.submit(request);
+    }
+
+    /**
+     * 응답을 기다리지 않고 이어서 보낼 요청을 I/O 스레드 큐에 넣음
+     * 응답이 보낸 순서대로 돌아오는 명령(LEA 데이터 0x3A 등)에만 사용
+     * @param request 요청 데이터
+     * @return 응답 프레임 future, 타임아웃/오류 시 예외로 완료
+     */
+    public CompletableFuture<byte[]> sendRequestPipelinedAsync(byte[] request) {
+        QsimCommandExecutor current = executor;
+        if (current == null) {
+            CompletableFuture<byte[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("Serial port is not initialized"));
+            return failed;
+        }
+        return current.submitPipelined(request);
+    }
+
+    /**
+     * 풀에서 받은 요청 배열을 넘기는 파이프라인 요청
+     * 요청 배열은 전송 후 QsimBufferPool 에 반납되므로 호출 후 사용하면 안 된다.
+     * @param request 요청 데이터
+     * @return 응답 프레임 future, 타임아웃/오류 시 예외로 완료
+     */
+    public CompletableFuture<byte[]> sendPooledRequestPipelinedAsync(byte[] request) {
+        QsimCommandExecutor current = executor;
+        if (current == null) {
+            CompletableFuture<byte[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("Serial port is not initialized"));
+            return failed;
+        }
+        return current.submitPipelinedReleasing(request);
+    }
+
+    /**
+     * 파이프라인으로 동시에 응답을 기다릴 최대 요청 수 설정
+     */
+    public void setPipelineWindow(int size) {
+        if (executor != null) {
+            executor.setPipelineWindow(size);
+        }
+    }
+
+    /**
+     * 요청과 관계없이 수신된 프레임 리스너 설정
+     */
+    public void setFrameListener(QsimCommandExecutor.FrameListener listener) {
+        if (executor != null) {
+            executor.setFrameListener(listener);
         }
-        return sb.toString();
     }
 
     /**
      * 시리얼 포트 닫기
      */
     public void close() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
         if (serialPort != null) {
             try {
                 serialPort.close();
@@ -107,4 +139,4 @@ public class CryptoSerial {
     public UsbSerialPort getSerialPort() {
         return serialPort;
     }
-}
\ No newline at end of file
+}
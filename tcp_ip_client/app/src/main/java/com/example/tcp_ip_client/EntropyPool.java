@@ -0,0 +1,31 @@
+package com.example.tcp_ip_client;
+
+import java.security.SecureRandom;
+
+/**
+ * 앱 전체가 함께 쓰는 난수 공급원
+ *
+ * SecureRandom 하나를 공유해 요청마다 새로 만들지 않는다 (SecureRandom 은 여러 스레드에서 써도 안전).
+ * QSIM 난수 명령 코드가 장치 문서로 확인되지 않아 QSIM 에서 난수를 받아 채우는 경로는 두지 않는다.
+ */
+public class EntropyPool {
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 난수 생성
+     * @param length 바이트 수
+     * @return 난수
+     */
+    public byte[] nextBytes(int length) {
+        byte[] out = new byte[length];
+        nextBytes(out);
+        return out;
+    }
+
+    /**
+     * out 전체를 난수로 채움
+     */
+    public void nextBytes(byte[] out) {
+        random.nextBytes(out);
+    }
+}
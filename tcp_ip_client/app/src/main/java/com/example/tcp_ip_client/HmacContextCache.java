@@ -0,0 +1,102 @@
+package com.example.tcp_ip_client;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * PSK 별 HMAC-SHA256 컨텍스트 캐시
+ *
+ * Provider 조회(Mac.getInstance)와 키 설정(init, ipad/opad 계산)은 PSK 마다 한 번만 하고,
+ * 초기화된 Mac 인스턴스를 풀에 보관해 재사용한다. doFinal() 이 Mac 을 키 설정 직후 상태로
+ * 되돌리므로 핸드셰이크마다 해시 계산만 남는다.
+ * 인증 스레드가 매번 새로 만들어지므로 ThreadLocal 대신 컨텍스트별 풀을 사용한다.
+ */
+public class HmacContextCache {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ConcurrentHashMap<String, Context> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * 한 PSK 로 초기화된 Mac 풀
+     */
+    public static final class Context {
+        private final SecretKeySpec keySpec;
+        private final ConcurrentLinkedQueue<Mac> pool = new ConcurrentLinkedQueue<>();
+
+        private Context(byte[] psk) {
+            this.keySpec = new SecretKeySpec(psk, ALGORITHM);
+        }
+
+        /**
+         * parts 를 순서대로 이어 붙인 데이터의 HMAC 계산
+         * @return 32바이트 MAC
+         */
+        public byte[] doFinal(byte[]... parts) throws GeneralSecurityException {
+            Mac mac = pool.poll();
+            if (mac == null) {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+            }
+            try {
+                for (byte[] part : parts) {
+                    mac.update(part);
+                }
+                return mac.doFinal();
+            } catch (RuntimeException e) {
+                // 상태를 알 수 없으므로 풀에 돌려놓지 않음
+                mac = null;
+                throw e;
+            } finally {
+                if (mac != null) {
+                    pool.offer(mac);
+                }
+            }
+        }
+    }
+
+    /**
+     * PSK 식별자에 해당하는 컨텍스트 반환
+     * 처음 요청될 때만 keyLoader 로 PSK 를 읽어 컨텍스트를 만든다.
+     * @param pskId PSK 식별자
+     * @param keyLoader PSK 바이트를 돌려주는 함수 (반환된 배열은 사용 후 0 으로 지움)
+     * @return 컨텍스트, PSK 를 얻지 못하면 null
+     */
+    public Context context(String pskId, Supplier<byte[]> keyLoader) {
+        Context context = contexts.get(pskId);
+        if (context != null) {
+            return context;
+        }
+
+        byte[] psk = keyLoader.get();
+        if (psk == null || psk.length == 0) {
+            return null;
+        }
+        try {
+            Context created = new Context(psk);
+            Context existing = contexts.putIfAbsent(pskId, created);
+            return existing != null ? existing : created;
+        } finally {
+            Arrays.fill(psk, (byte) 0);
+        }
+    }
+
+    /**
+     * PSK 가 바뀌었을 때 해당 컨텍스트 삭제
+     */
+    public void invalidate(String pskId) {
+        contexts.remove(pskId);
+    }
+
+    /**
+     * 전체 컨텍스트 삭제
+     */
+    public void clear() {
+        contexts.clear();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.tcp_ip_client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * QSIM LEA-128-ECB 암호화 입력 스트림
+ *
+ * 하위 스트림에서 평문을 프레임 크기 단위로 읽어 CryptoModule 로 암호화하고 암호문을 돌려준다.
+ * 입력 길이와 관계없이 버퍼는 LeaStreams.CHUNK_SIZE 를 넘지 않는다.
+ * 하위 스트림이 끝나면 마지막 조각에 PKCS#7 패딩을 붙여 암호화한다.
+ */
+public class LeaEncryptingInputStream extends FilterInputStream {
+    private final CryptoModule module;
+    private final byte[] key;
+    // 패딩 블록 자리까지 포함
+    private final byte[] plain = new byte[LeaStreams.CHUNK_SIZE + CryptoModule.LEA_BLOCK_SIZE];
+    private byte[] cipher = new byte[0];
+    private int cipherPos = 0;
+    private boolean finished = false;
+
+    /**
+     * @param in 평문을 읽을 스트림
+     * @param module QSIM 암호 모듈
+     * @param key 16바이트 키
+     */
+    public LeaEncryptingInputStream(InputStream in, CryptoModule module, byte[] key) {
+        super(in);
+        this.module = module;
+        this.key = LeaStreams.copyKey(key);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (cipherPos == cipher.length && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, cipher.length - cipherPos);
+        System.arraycopy(cipher, cipherPos, b, off, n);
+        cipherPos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            if (cipherPos == cipher.length && !fill()) {
+                break;
+            }
+            int step = (int) Math.min(n - skipped, cipher.length - cipherPos);
+            cipherPos += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return cipher.length - cipherPos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * 평문 한 덩어리를 읽어 암호화
+     * @return 더 내보낼 암호문이 없으면 false
+     */
+    private boolean fill() throws IOException {
+        if (finished) {
+            return false;
+        }
+
+        int count = 0;
+        while (count < LeaStreams.CHUNK_SIZE) {
+            int n = in.read(plain, count, LeaStreams.CHUNK_SIZE - count);
+            if (n < 0) {
+                finished = true;
+                break;
+            }
+            count += n;
+        }
+
+        int length = finished ? LeaStreams.pad(plain, count) : count;
+        cipher = LeaStreams.encrypt(module, key, plain, length);
+        cipherPos = 0;
+        return true;
+    }
+}
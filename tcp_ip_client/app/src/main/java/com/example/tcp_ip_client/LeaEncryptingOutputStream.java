@@ -0,0 +1,101 @@
+package com.example.tcp_ip_client;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * QSIM LEA-128-ECB 암호화 출력 스트림
+ *
+ * 쓰여진 평문을 프레임 크기 단위로 모아 CryptoModule 로 암호화한 뒤 하위 스트림에 쓴다.
+ * 입력 길이와 관계없이 버퍼는 LeaStreams.CHUNK_SIZE 를 넘지 않는다.
+ * close() 시 마지막 조각에 PKCS#7 패딩을 붙여 암호화한다.
+ */
+public class LeaEncryptingOutputStream extends FilterOutputStream {
+    private final CryptoModule module;
+    private final byte[] key;
+    // 패딩 블록 자리까지 포함
+    private final byte[] buffer = new byte[LeaStreams.CHUNK_SIZE + CryptoModule.LEA_BLOCK_SIZE];
+    private int count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out 암호문을 쓸 스트림
+     * @param module QSIM 암호 모듈
+     * @param key 16바이트 키
+     */
+    public LeaEncryptingOutputStream(OutputStream out, CryptoModule module, byte[] key) {
+        super(out);
+        this.module = module;
+        this.key = LeaStreams.copyKey(key);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte) b;
+        if (count == LeaStreams.CHUNK_SIZE) {
+            encryptBuffered(count);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, LeaStreams.CHUNK_SIZE - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == LeaStreams.CHUNK_SIZE) {
+                encryptBuffered(count);
+            }
+        }
+    }
+
+    /**
+     * 모인 평문 중 16바이트 배수만큼 암호화해서 내보냄
+     * 블록이 덜 찬 나머지는 다음 쓰기/close 까지 남겨둔다.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        int whole = count - (count % CryptoModule.LEA_BLOCK_SIZE);
+        if (whole > 0) {
+            encryptBuffered(whole);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            int length = LeaStreams.pad(buffer, count);
+            encryptBuffered(length);
+            out.flush();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void encryptBuffered(int length) throws IOException {
+        byte[] cipher = LeaStreams.encrypt(module, key, buffer, length);
+        out.write(cipher, 0, cipher.length);
+
+        // 남은 평문을 앞으로 당김
+        int remaining = Math.max(0, count - length);
+        System.arraycopy(buffer, length, buffer, 0, remaining);
+        count = remaining;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
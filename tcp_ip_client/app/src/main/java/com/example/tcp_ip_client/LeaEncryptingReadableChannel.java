@@ -0,0 +1,67 @@
+package com.example.tcp_ip_client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * QSIM LEA-128-ECB 암호화 읽기 채널
+ *
+ * LeaEncryptingInputStream 을 ReadableByteChannel 로 감싼 어댑터.
+ * 하위 채널이 끝나면 PKCS#7 패딩을 붙인 마지막 블록까지 읽힌다.
+ */
+public class LeaEncryptingReadableChannel implements ReadableByteChannel {
+    private final LeaEncryptingInputStream stream;
+    // direct 버퍼 등 배열이 없는 출력에 옮겨 담는 용도
+    private final byte[] scratch = new byte[LeaStreams.CHUNK_SIZE];
+    private boolean open = true;
+
+    /**
+     * @param source 평문을 읽을 채널
+     * @param module QSIM 암호 모듈
+     * @param key 16바이트 키
+     */
+    public LeaEncryptingReadableChannel(ReadableByteChannel source, CryptoModule module, byte[] key) {
+        this.stream = new LeaEncryptingInputStream(Channels.newInputStream(source), module, key);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        if (dst.hasArray()) {
+            int n = stream.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (n > 0) {
+                dst.position(dst.position() + n);
+            }
+            return n;
+        }
+
+        int n = stream.read(scratch, 0, Math.min(dst.remaining(), scratch.length));
+        if (n > 0) {
+            dst.put(scratch, 0, n);
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        stream.close();
+    }
+}
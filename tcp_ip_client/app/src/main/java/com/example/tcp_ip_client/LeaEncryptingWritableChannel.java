@@ -0,0 +1,64 @@
+package com.example.tcp_ip_client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * QSIM LEA-128-ECB 암호화 쓰기 채널
+ *
+ * LeaEncryptingOutputStream 을 WritableByteChannel 로 감싼 어댑터.
+ * close() 시 PKCS#7 패딩을 붙여 마지막 블록을 내보내고 하위 채널을 닫는다.
+ */
+public class LeaEncryptingWritableChannel implements WritableByteChannel {
+    private final LeaEncryptingOutputStream stream;
+    // direct 버퍼 등 배열이 없는 입력을 옮겨 담는 용도
+    private final byte[] scratch = new byte[LeaStreams.CHUNK_SIZE];
+    private boolean open = true;
+
+    /**
+     * @param target 암호문을 쓸 채널
+     * @param module QSIM 암호 모듈
+     * @param key 16바이트 키
+     */
+    public LeaEncryptingWritableChannel(WritableByteChannel target, CryptoModule module, byte[] key) {
+        this.stream = new LeaEncryptingOutputStream(Channels.newOutputStream(target), module, key);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+
+        int written = src.remaining();
+        if (src.hasArray()) {
+            stream.write(src.array(), src.arrayOffset() + src.position(), written);
+            src.position(src.limit());
+            return written;
+        }
+
+        while (src.hasRemaining()) {
+            int n = Math.min(src.remaining(), scratch.length);
+            src.get(scratch, 0, n);
+            stream.write(scratch, 0, n);
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        stream.close();
+    }
+}
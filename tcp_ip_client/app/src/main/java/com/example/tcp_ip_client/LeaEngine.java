@@ -0,0 +1,212 @@
+package com.example.tcp_ip_client;
+
+/**
+ * LEA 블록 암호 소프트웨어 구현 (KS X 3246)
+ *
+ * 128/192/256 비트 키를 지원한다. 라운드 키는 생성자에서 한 번만 계산해 int 배열로 보관하고,
+ * 블록 암복호화는 지역 변수만 사용하므로 블록마다 메모리를 할당하지 않는다.
+ * 생성 후에는 상태가 바뀌지 않으므로 여러 스레드에서 같은 인스턴스를 써도 된다.
+ * QSIM 이 없을 때의 대체 경로와 하드웨어 결과 검증용 기준으로 사용한다.
+ */
+public final class LeaEngine {
+    public static final int BLOCK_SIZE = 16;
+
+    // 키 스케줄 상수 δ
+    private static final int[] DELTA = {
+            0xc3efe9db, 0x44626b02, 0x79e27c8a, 0x78df30ec,
+            0x715ea49e, 0xc785da0a, 0xe04ef22a, 0xe5c40957
+    };
+
+    private final int rounds;
+    // 라운드마다 6워드
+    private final int[] roundKeys;
+
+    /**
+     * @param key 16, 24, 32바이트 키
+     */
+    public LeaEngine(byte[] key) {
+        if (key == null || (key.length != 16 && key.length != 24 && key.length != 32)) {
+            throw new IllegalArgumentException("LEA 키는 16/24/32바이트여야 합니다");
+        }
+
+        int words = key.length / 4;
+        int[] t = new int[words];
+        for (int i = 0; i < words; i++) {
+            t[i] = readInt(key, i * 4);
+        }
+
+        rounds = 16 + words * 2;
+        roundKeys = new int[rounds * 6];
+
+        switch (words) {
+            case 4:
+                scheduleKey128(t);
+                break;
+            case 6:
+                scheduleKey192(t);
+                break;
+            default:
+                scheduleKey256(t);
+                break;
+        }
+    }
+
+    /**
+     * 라운드 수 (128: 24, 192: 28, 256: 32)
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * 16바이트 블록 하나 암호화
+     * in 과 out 은 같은 배열이어도 된다.
+     */
+    public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        int x0 = readInt(in, inOff);
+        int x1 = readInt(in, inOff + 4);
+        int x2 = readInt(in, inOff + 8);
+        int x3 = readInt(in, inOff + 12);
+
+        int[] rk = roundKeys;
+        for (int i = 0, k = 0; i < rounds; i++, k += 6) {
+            int t0 = x0;
+            x0 = Integer.rotateLeft((x0 ^ rk[k]) + (x1 ^ rk[k + 1]), 9);
+            x1 = Integer.rotateRight((x1 ^ rk[k + 2]) + (x2 ^ rk[k + 3]), 5);
+            x2 = Integer.rotateRight((x2 ^ rk[k + 4]) + (x3 ^ rk[k + 5]), 3);
+            x3 = t0;
+        }
+
+        writeInt(x0, out, outOff);
+        writeInt(x1, out, outOff + 4);
+        writeInt(x2, out, outOff + 8);
+        writeInt(x3, out, outOff + 12);
+    }
+
+    /**
+     * 16바이트 블록 하나 복호화
+     * in 과 out 은 같은 배열이어도 된다.
+     */
+    public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        int x0 = readInt(in, inOff);
+        int x1 = readInt(in, inOff + 4);
+        int x2 = readInt(in, inOff + 8);
+        int x3 = readInt(in, inOff + 12);
+
+        int[] rk = roundKeys;
+        for (int i = rounds - 1, k = i * 6; i >= 0; i--, k -= 6) {
+            int p0 = x3;
+            int p1 = (Integer.rotateRight(x0, 9) - (p0 ^ rk[k])) ^ rk[k + 1];
+            int p2 = (Integer.rotateLeft(x1, 5) - (p1 ^ rk[k + 2])) ^ rk[k + 3];
+            int p3 = (Integer.rotateLeft(x2, 3) - (p2 ^ rk[k + 4])) ^ rk[k + 5];
+            x0 = p0;
+            x1 = p1;
+            x2 = p2;
+            x3 = p3;
+        }
+
+        writeInt(x0, out, outOff);
+        writeInt(x1, out, outOff + 4);
+        writeInt(x2, out, outOff + 8);
+        writeInt(x3, out, outOff + 12);
+    }
+
+    /**
+     * ECB 모드 암호화
+     * @param length 16바이트 배수
+     */
+    public void encryptEcb(byte[] in, int inOff, int length, byte[] out, int outOff) {
+        checkLength(length);
+        for (int i = 0; i < length; i += BLOCK_SIZE) {
+            encryptBlock(in, inOff + i, out, outOff + i);
+        }
+    }
+
+    /**
+     * ECB 모드 암호화
+     * @param data 16바이트 배수 평문
+     * @return 암호문
+     */
+    public byte[] encryptEcb(byte[] data) {
+        byte[] out = new byte[data.length];
+        encryptEcb(data, 0, data.length, out, 0);
+        return out;
+    }
+
+    /**
+     * ECB 모드 복호화
+     * @param length 16바이트 배수
+     */
+    public void decryptEcb(byte[] in, int inOff, int length, byte[] out, int outOff) {
+        checkLength(length);
+        for (int i = 0; i < length; i += BLOCK_SIZE) {
+            decryptBlock(in, inOff + i, out, outOff + i);
+        }
+    }
+
+    private void scheduleKey128(int[] t) {
+        for (int i = 0, k = 0; i < rounds; i++, k += 6) {
+            int delta = DELTA[i & 3];
+            t[0] = Integer.rotateLeft(t[0] + Integer.rotateLeft(delta, i), 1);
+            t[1] = Integer.rotateLeft(t[1] + Integer.rotateLeft(delta, i + 1), 3);
+            t[2] = Integer.rotateLeft(t[2] + Integer.rotateLeft(delta, i + 2), 6);
+            t[3] = Integer.rotateLeft(t[3] + Integer.rotateLeft(delta, i + 3), 11);
+            roundKeys[k] = t[0];
+            roundKeys[k + 1] = t[1];
+            roundKeys[k + 2] = t[2];
+            roundKeys[k + 3] = t[1];
+            roundKeys[k + 4] = t[3];
+            roundKeys[k + 5] = t[1];
+        }
+    }
+
+    private void scheduleKey192(int[] t) {
+        for (int i = 0, k = 0; i < rounds; i++, k += 6) {
+            int delta = DELTA[i % 6];
+            t[0] = Integer.rotateLeft(t[0] + Integer.rotateLeft(delta, i), 1);
+            t[1] = Integer.rotateLeft(t[1] + Integer.rotateLeft(delta, i + 1), 3);
+            t[2] = Integer.rotateLeft(t[2] + Integer.rotateLeft(delta, i + 2), 6);
+            t[3] = Integer.rotateLeft(t[3] + Integer.rotateLeft(delta, i + 3), 11);
+            t[4] = Integer.rotateLeft(t[4] + Integer.rotateLeft(delta, i + 4), 13);
+            t[5] = Integer.rotateLeft(t[5] + Integer.rotateLeft(delta, i + 5), 17);
+            System.arraycopy(t, 0, roundKeys, k, 6);
+        }
+    }
+
+    private void scheduleKey256(int[] t) {
+        for (int i = 0, k = 0; i < rounds; i++, k += 6) {
+            int delta = DELTA[i & 7];
+            int base = 6 * i;
+            t[base & 7] = Integer.rotateLeft(t[base & 7] + Integer.rotateLeft(delta, i), 1);
+            t[(base + 1) & 7] = Integer.rotateLeft(t[(base + 1) & 7] + Integer.rotateLeft(delta, i + 1), 3);
+            t[(base + 2) & 7] = Integer.rotateLeft(t[(base + 2) & 7] + Integer.rotateLeft(delta, i + 2), 6);
+            t[(base + 3) & 7] = Integer.rotateLeft(t[(base + 3) & 7] + Integer.rotateLeft(delta, i + 3), 11);
+            t[(base + 4) & 7] = Integer.rotateLeft(t[(base + 4) & 7] + Integer.rotateLeft(delta, i + 4), 13);
+            t[(base + 5) & 7] = Integer.rotateLeft(t[(base + 5) & 7] + Integer.rotateLeft(delta, i + 5), 17);
+            for (int j = 0; j < 6; j++) {
+                roundKeys[k + j] = t[(base + j) & 7];
+            }
+        }
+    }
+
+    private static void checkLength(int length) {
+        if (length % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("데이터 길이는 16바이트 배수여야 합니다");
+        }
+    }
+
+    // LEA 는 리틀 엔디안 워드를 사용
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF)
+                | (b[off + 1] & 0xFF) << 8
+                | (b[off + 2] & 0xFF) << 16
+                | (b[off + 3] & 0xFF) << 24;
+    }
+
+    private static void writeInt(int v, byte[] b, int off) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+        b[off + 2] = (byte) (v >>> 16);
+        b[off + 3] = (byte) (v >>> 24);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LEA-128-ECB 요청을 QSIM 또는 소프트웨어 엔진으로 나눠 보내는 스케줄러
+ *
+ * 요청 크기, QSIM 대기 중인 프레임 수, 경로별 측정 지연(EWMA)으로 예상 완료 시간을 계산해
+ * 더 빠른 쪽으로 보낸다. 단일 블록처럼 작은 요청은 보통 USB 왕복 시간이 대부분이라
+ * 소프트웨어 쪽으로, 큰 요청은 QSIM 처리량이 더 나으면 QSIM 쪽으로 가게 된다.
+ * 앱이 키를 직접 가지고 있는 경우에만 사용할 수 있다 (QSIM 슬롯에 있는 키는 소프트웨어로 처리 불가).
+ * CryptoModule.getLeaScheduler() 로 모듈마다 하나씩 만들어 통계를 공유한다.
+ */
+public class LeaScheduler {
+    private static final String TAG = "LeaScheduler";
+
+    public enum Route { HARDWARE, SOFTWARE }
+
+    // 측정값 반영 비율
+    private static final double EWMA_ALPHA = 0.2;
+    // 측정 전 초기값: QSIM 프레임 하나 왕복 20ms, 소프트웨어 바이트당 10ns
+    private static final double INITIAL_HW_NS_PER_FRAME = 20_000_000.0;
+    private static final double INITIAL_SW_NS_PER_BYTE = 10.0;
+    // 통계가 한쪽으로 굳지 않도록 가끔 다른 경로로 보냄
+    private static final int PROBE_INTERVAL = 64;
+
+    // QSIM 실패 후 소프트웨어 재계산용 (QSIM I/O 스레드를 막지 않도록 따로 실행)
+    private static final Executor FALLBACK_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lea-software-fallback");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CryptoModule module;
+    private final Executor fallbackExecutor;
+    private final AtomicInteger pendingHardwareFrames = new AtomicInteger();
+    private final AtomicInteger decisions = new AtomicInteger();
+
+    private volatile double hwNsPerFrame = INITIAL_HW_NS_PER_FRAME;
+    private volatile double swNsPerByte = INITIAL_SW_NS_PER_BYTE;
+
+    // 마지막으로 쓴 키의 소프트웨어 엔진 (키 스케줄 재사용)
+    private volatile CachedEngine cachedEngine;
+
+    private static final class CachedEngine {
+        final byte[] key;
+        final LeaEngine engine;
+
+        CachedEngine(byte[] key, LeaEngine engine) {
+            this.key = key;
+            this.engine = engine;
+        }
+    }
+
+    public LeaScheduler(CryptoModule module) {
+        this(module, FALLBACK_EXECUTOR);
+    }
+
+    /**
+     * @param fallbackExecutor QSIM 실패 시 소프트웨어 재계산을 실행할 executor
+     */
+    public LeaScheduler(CryptoModule module, Executor fallbackExecutor) {
+        this.module = module;
+        this.fallbackExecutor = fallbackExecutor;
+    }
+
+    /**
+     * LEA-128-ECB 암호화
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터 (16바이트 배수)
+     * @return 암호화된 데이터, 오류시 null
+     */
+    public byte[] encrypt(byte[] key, byte[] data) {
+        try {
+            return encryptAsync(key, data).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Log.e(TAG, "Encryption error: " + cause.getMessage(), cause);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * LEA-128-ECB 암호화 (비동기)
+     * 소프트웨어 경로는 호출한 스레드에서 바로 계산하고 완료된 future 를 반환한다.
+     * QSIM 경로가 실패하면 fallback executor 에서 소프트웨어로 다시 계산한다.
+     * @param key 16바이트 키
+     * @param data 암호화할 데이터 (16바이트 배수)
+     * @return 암호화된 데이터 future, 오류시 예외로 완료
+     */
+    public CompletableFuture<byte[]> encryptAsync(final byte[] key, final byte[] data) {
+        if (key == null || key.length != CryptoModule.LEA_BLOCK_SIZE) {
+            return failedFuture(new IllegalArgumentException("LEA-128 키는 16바이트여야 합니다"));
+        }
+        if (data == null || data.length % CryptoModule.LEA_BLOCK_SIZE != 0) {
+            return failedFuture(new IllegalArgumentException("데이터 길이가 16바이트 배수가 아닙니다"));
+        }
+
+        if (chooseRoute(data.length) == Route.SOFTWARE) {
+            return CompletableFuture.completedFuture(encryptSoftware(key, data));
+        }
+
+        final int frames = frameCount(data.length);
+        final long start = System.nanoTime();
+        pendingHardwareFrames.addAndGet(frames);
+
+        return module.encryptLea128EcbBulkAsync(key, data).handle((cipher, error) -> {
+            pendingHardwareFrames.addAndGet(-frames);
+            if (error == null && cipher != null) {
+                recordHardware(System.nanoTime() - start, frames);
+                return cipher;
+            }
+
+            Log.w(TAG, "QSIM 암호화 실패, 소프트웨어로 처리: " + (error != null ? error.getMessage() : "null"));
+            // 실패한 경로는 한동안 선택되지 않도록 불리하게 기록
+            recordHardware((System.nanoTime() - start) * 4, frames);
+            return null;
+        }).thenCompose(cipher -> cipher != null
+                ? CompletableFuture.completedFuture(cipher)
+                // 완료 콜백은 QSIM 수신 스레드에서 불리므로 재계산은 별도 스레드에서
+                : CompletableFuture.supplyAsync(() -> encryptSoftware(key, data), fallbackExecutor));
+    }
+
+    /**
+     * 현재 통계로 length 바이트 요청을 보낼 경로 결정
+     */
+    public Route chooseRoute(int length) {
+        if (!module.isHardwareAvailable()) {
+            return Route.SOFTWARE;
+        }
+
+        // 앞에 밀린 프레임까지 처리해야 끝나므로 대기 중인 프레임 수를 더함
+        double hardware = hwNsPerFrame * (frameCount(length) + pendingHardwareFrames.get());
+        double software = swNsPerByte * length;
+        Route route = hardware < software ? Route.HARDWARE : Route.SOFTWARE;
+
+        if (decisions.incrementAndGet() % PROBE_INTERVAL == 0) {
+            route = route == Route.HARDWARE ? Route.SOFTWARE : Route.HARDWARE;
+        }
+        return route;
+    }
+
+    /**
+     * 측정된 QSIM 프레임당 지연 (ns)
+     */
+    public double getHardwareNsPerFrame() {
+        return hwNsPerFrame;
+    }
+
+    /**
+     * 측정된 소프트웨어 바이트당 지연 (ns)
+     */
+    public double getSoftwareNsPerByte() {
+        return swNsPerByte;
+    }
+
+    private byte[] encryptSoftware(byte[] key, byte[] data) {
+        long start = System.nanoTime();
+        byte[] cipher = engineFor(key).encryptEcb(data);
+        if (data.length > 0) {
+            swNsPerByte = ewma(swNsPerByte, (double) (System.nanoTime() - start) / data.length);
+        }
+        return cipher;
+    }
+
+    private LeaEngine engineFor(byte[] key) {
+        CachedEngine cached = cachedEngine;
+        if (cached != null && Arrays.equals(cached.key, key)) {
+            return cached.engine;
+        }
+        byte[] copy = key.clone();
+        cached = new CachedEngine(copy, new LeaEngine(copy));
+        cachedEngine = cached;
+        return cached.engine;
+    }
+
+    private void recordHardware(long elapsedNs, int frames) {
+        hwNsPerFrame = ewma(hwNsPerFrame, (double) elapsedNs / Math.max(1, frames));
+    }
+
+    private static double ewma(double current, double sample) {
+        return current + EWMA_ALPHA * (sample - current);
+    }
+
+    private static int frameCount(int length) {
+        return Math.max(1, (length + CryptoModule.MAX_LEA_FRAME_DATA - 1) / CryptoModule.MAX_LEA_FRAME_DATA);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
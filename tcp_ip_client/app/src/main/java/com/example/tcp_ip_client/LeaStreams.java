@@ -0,0 +1,54 @@
+package com.example.tcp_ip_client;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * LEA 스트림 어댑터 공통 처리
+ *
+ * 평문을 CHUNK_SIZE 단위로 모아 LeaScheduler 로 보내고 (QSIM 대량 암호화 또는 소프트웨어 엔진),
+ * 마지막 조각은 PKCS#7 패딩을 붙여 16바이트 배수로 맞춘다.
+ */
+final class LeaStreams {
+    // 한 번에 암호화할 평문 크기 (데이터 프레임 4개, 파이프라인 기본 윈도우와 같음)
+    static final int CHUNK_SIZE = CryptoModule.MAX_LEA_FRAME_DATA * QsimCommandExecutor.DEFAULT_PIPELINE_WINDOW;
+
+    private LeaStreams() {
+    }
+
+    /**
+     * 키 복사 및 검증
+     */
+    static byte[] copyKey(byte[] key) {
+        if (key == null || key.length != CryptoModule.LEA_BLOCK_SIZE) {
+            throw new IllegalArgumentException("LEA-128 키는 16바이트여야 합니다");
+        }
+        return key.clone();
+    }
+
+    /**
+     * 버퍼 앞부분 length 바이트를 암호화
+     * @param length 16바이트 배수
+     * @return 암호문
+     */
+    static byte[] encrypt(CryptoModule module, byte[] key, byte[] buffer, int length) throws IOException {
+        byte[] plain = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        byte[] cipher = module.getLeaScheduler().encrypt(key, plain);
+        if (cipher == null) {
+            throw new IOException("LEA 암호화 실패");
+        }
+        return cipher;
+    }
+
+    /**
+     * 마지막 조각에 PKCS#7 패딩을 붙임
+     * @param buffer 패딩을 붙일 자리가 있는 버퍼 (CHUNK_SIZE + 16 이상)
+     * @param length 남은 평문 길이
+     * @return 패딩 포함 길이
+     */
+    static int pad(byte[] buffer, int length) {
+        int padding = CryptoModule.LEA_BLOCK_SIZE - (length % CryptoModule.LEA_BLOCK_SIZE);
+        Arrays.fill(buffer, length, length + padding, (byte) padding);
+        return length + padding;
+    }
+}
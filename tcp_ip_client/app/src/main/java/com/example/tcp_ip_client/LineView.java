@@ -0,0 +1,198 @@
+package com.example.tcp_ip_client;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 수신 버퍼 안의 줄 하나를 가리키는 뷰
+ *
+ * 바이트를 복사하지 않고 CharSequence 로 보여 준다. 프로토콜 메시지가 ASCII 이므로
+ * charAt() 은 바이트 하나를 문자 하나로 보고, toString() 을 호출할 때만 UTF-8 로 디코딩한 String 을 만든다.
+ * 수신 스레드가 같은 객체를 다음 줄에 다시 쓰므로 리스너 호출이 끝난 뒤에는 사용하면 안 된다.
+ * 값을 보관하려면 toString(), decodeHex(), copyBytes() 로 복사해야 한다.
+ */
+public final class LineView implements CharSequence {
+    private byte[] buffer;
+    private int offset;
+    private int length;
+
+    LineView() {
+    }
+
+    LineView(byte[] buffer, int offset, int length) {
+        set(buffer, offset, length);
+    }
+
+    /**
+     * 다른 줄을 가리키도록 변경 (수신 스레드)
+     */
+    void set(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (buffer[offset + index] & 0xFF);
+    }
+
+    public byte byteAt(int index) {
+        return buffer[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new LineView(buffer, offset + start, end - start);
+    }
+
+    /**
+     * 첫 번째 ch 위치
+     * @return 위치, 없으면 -1
+     */
+    public int indexOf(char ch) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[offset + i] == (byte) ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 앞쪽 공백을 건너뛴 뒤 prefix 로 시작하는지 확인 (ASCII)
+     */
+    public boolean startsWith(String prefix) {
+        int start = skipWhitespace(0);
+        if (length - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[offset + start + i] != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * text 와 정확히 같은지 확인 (ASCII)
+     */
+    public boolean contentEquals(String text) {
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[offset + i] != (byte) text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 앞뒤 공백을 무시하고 대소문자 구분 없이 같은지 확인 (ASCII)
+     */
+    public boolean equalsIgnoreCase(String text) {
+        int start = skipWhitespace(0);
+        int end = length;
+        while (end > start && isWhitespace(buffer[offset + end - 1])) {
+            end--;
+        }
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.toUpperCase((char) (buffer[offset + start + i] & 0xFF))
+                    != Character.toUpperCase(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * from 부터 끝까지의 16진수 문자를 바이트 배열로 변환 (공백은 건너뜀)
+     * @return 변환 결과, 16진수가 아니거나 자릿수가 홀수면 null
+     */
+    public byte[] decodeHex(int from) {
+        int digits = 0;
+        for (int i = from; i < length; i++) {
+            byte b = buffer[offset + i];
+            if (isWhitespace(b)) {
+                continue;
+            }
+            if (Character.digit((char) b, 16) < 0) {
+                return null;
+            }
+            digits++;
+        }
+        if (digits == 0 || digits % 2 != 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[digits / 2];
+        int high = -1;
+        int index = 0;
+        for (int i = from; i < length; i++) {
+            byte b = buffer[offset + i];
+            if (isWhitespace(b)) {
+                continue;
+            }
+            int digit = Character.digit((char) b, 16);
+            if (high < 0) {
+                high = digit;
+            } else {
+                bytes[index++] = (byte) ((high << 4) | digit);
+                high = -1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 줄 바이트 복사본
+     */
+    public byte[] copyBytes() {
+        byte[] copy = new byte[length];
+        System.arraycopy(buffer, offset, copy, 0, length);
+        return copy;
+    }
+
+    /**
+     * UTF-8 로 디코딩한 String (호출할 때마다 새로 만듦)
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private int skipWhitespace(int from) {
+        while (from < length && isWhitespace(buffer[offset + from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -5,6 +5,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
 import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbManager;
@@ -29,13 +30,11 @@ import com.hoho.android.usbserial.driver.UsbSerialProber;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
@@ -50,7 +49,7 @@ public class MainActivity extends AppCompatActivity {
     private Button buttonClear;
     private Button buttonGetVersion;
     private TextView textViewStatus, textViewReceived;
-    private TCPClient tcpClient;
+    private AuthClient tcpClient;
     private Handler mainHandler;
 
     // USB serial related variables
@@ -58,6 +57,8 @@ public class MainActivity extends AppCompatActivity {
     private UsbSerialPort serialPort;
     private CryptoSerial cryptoSerial;
     private CryptoModule cryptoModule;
+    // Random source for NonceC (one SecureRandom shared by all handshakes)
+    private final EntropyPool entropyPool = new EntropyPool();
     private Button buttonUsbConnect, buttonUsbTest;
 
     // Authentication protocol related variables
@@ -74,6 +75,18 @@ public class MainActivity extends AppCompatActivity {
     // Authentication result storage variable
     private String serverAuthResult = null;
 
+    // Run the server connection on the shared selector loop instead of per-connection reader/writer threads
+    private static final boolean USE_EVENT_LOOP_CLIENT = true;
+
+    // How long to wait for the server to accept the binary wire format
+    private static final int NEGOTIATION_TIMEOUT_MS = 1000;
+
+    // PSK shared with the server
+    private static final String PSK_ID = "default";
+    private static final String PSK_HEX = "306E538A29ADAB6E8FDD92C02101E9C2306E538A29ADAB6E8FDD92C02101E9C2";
+    // HMAC keys set up once per PSK and reused across handshakes
+    private final HmacContextCache hmacContextCache = new HmacContextCache();
+
     // Flag for waiting for server response
     private volatile boolean waitingForServerResponse = false;
 
@@ -86,6 +99,10 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Frame hex dumps only in debuggable builds; release builds keep the trace ring only
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        TraceLog.setLevel(debuggable ? TraceLog.DEBUG : TraceLog.INFO);
+
         // TCP/IP UI elements initialization
         editTextServerIP = findViewById(R.id.editTextServerIP);
         editTextServerPort = findViewById(R.id.editTextServerPort);
@@ -326,35 +343,24 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    // Start thread for data reception
+    // Receive frames that arrive outside of a request
+    // (the serial port itself is owned by the CryptoSerial I/O thread)
     private void startIoManager() {
-        // Start separate thread for data reception processing
-        new Thread(new Runnable() {
+        if (cryptoSerial == null) {
+            return;
+        }
+        cryptoSerial.setFrameListener(new QsimCommandExecutor.FrameListener() {
             @Override
-            public void run() {
-                byte[] buffer = new byte[1024];
-                while (serialPort != null) {
-                    try {
-                        int len = serialPort.read(buffer, 1000);
-                        if (len > 0) {
-                            final byte[] data = new byte[len];
-                            System.arraycopy(buffer, 0, data, 0, len);
-
-                            // Process data in UI thread
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    processReceivedData(data);
-                                }
-                            });
-                        }
-                    } catch (IOException e) {
-                        Log.e(TAG, "Data reception error", e);
-                        break;
+            public void onFrame(byte[] frame) {
+                // Process data in UI thread
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        processReceivedData(frame);
                     }
-                }
+                });
             }
-        }).start();
+        });
     }
 
     // Process received data
@@ -384,7 +390,7 @@ public class MainActivity extends AppCompatActivity {
 
             appendToMessageHistory("LEA-128-ECB encryption test started");
 
-            // 암호화 수행
+            // 암호화 수행 (QSIM 결과를 소프트웨어 결과와 비교하는 테스트라 LeaScheduler 를 거치지 않음)
             byte[] encrypted = cryptoModule.encryptLea128Ecb(key, data);
 
             if (encrypted != null) {
@@ -395,8 +401,9 @@ public class MainActivity extends AppCompatActivity {
                 }
                 appendToMessageHistory("LEA-128-ECB encryption [16] = " + sb.toString());
 
-                // 결과 비교 예상 결과 vs 수행결과
-                String expectedResult = "C92ED5DDB2448EC936CA33088D204032";
+                // 결과 비교 소프트웨어 LEA 결과 vs 수행결과
+                byte[] reference = new LeaEngine(key).encryptEcb(data);
+                String expectedResult = bytesToHex(reference);
 
                 if (sb.toString().equalsIgnoreCase(expectedResult)) {
                     appendToMessageHistory("Encryption successful (expected result matches)");
@@ -416,19 +423,21 @@ public class MainActivity extends AppCompatActivity {
 
     // 시리얼 포트 닫기
     private void closeSerialPort() {
-        if (serialPort != null) {
+        // Stop the I/O thread before the port is closed
+        if (TraceLog.isEnabled(TraceLog.DEBUG)) {
+            TraceLog.dumpToLog();
+        }
+        if (cryptoModule != null) {
+            cryptoModule.close();
+            cryptoModule = null;
+        } else if (serialPort != null) {
             try {
                 serialPort.close();
             } catch (IOException e) {
                 Log.e(TAG, "Serial port closing error", e);
             }
-            serialPort = null;
-        }
-
-        if (cryptoModule != null) {
-            cryptoModule.close();
-            cryptoModule = null;
         }
+        serialPort = null;
 
         cryptoSerial = null;
         buttonUsbTest.setEnabled(false);
@@ -515,14 +524,24 @@ public class MainActivity extends AppCompatActivity {
             String serverIP = params[0];
             int serverPort = Integer.parseInt(params[1]);
 
-            tcpClient = new TCPClient(serverIP, serverPort, new TCPClient.OnMessageReceviedListener() {
+            tcpClient = createClient(serverIP, serverPort);
+            tcpClient.setLineListener(new AuthClient.OnLineReceivedListener() {
                 @Override
-                public void onMessageReceived(String message) {
-                    // Process message in UI thread
+                public void onLineReceived(int type, LineView line) {
+                    // The view is only valid during this call; extract what the UI thread needs here
+                    handleServerLine(type, line);
+                }
+            });
+
+            tcpClient.setRecordListener(new AuthClient.OnRecordReceivedListener() {
+                @Override
+                public void onRecordReceived(int type, byte[] buffer, int offset, int length) {
+                    // The buffer is reused by the receive thread, so copy before handing off
+                    final byte[] value = Arrays.copyOfRange(buffer, offset, offset + length);
                     runOnUiThread(new Runnable() {
                         @Override
                         public void run() {
-                            handleServerMessage(message);
+                            handleServerRecord(type, value);
                         }
                     });
                 }
@@ -531,6 +550,10 @@ public class MainActivity extends AppCompatActivity {
             boolean connected = tcpClient.connect();
             if (connected) {
                 tcpClient.startListening();
+                // Switch to binary records if the server supports them; old servers stay on text lines.
+                // Don't wait for the answer: messages sent meanwhile are held until the format is settled
+                tcpClient.negotiateBinaryModeAsync(NEGOTIATION_TIMEOUT_MS).thenAccept(binary ->
+                        Log.d("MainActivity", "Wire format: " + (binary ? "binary records" : "text lines")));
             }
             return connected;
         }
@@ -547,6 +570,18 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Event loop client when available, blocking socket client otherwise
+    private AuthClient createClient(String serverIP, int serverPort) {
+        if (USE_EVENT_LOOP_CLIENT) {
+            try {
+                return new NioTCPClient(TcpEventLoop.shared(), serverIP, serverPort, null);
+            } catch (IOException e) {
+                Log.e(TAG, "Event loop start failed, using blocking client", e);
+            }
+        }
+        return new TCPClient(serverIP, serverPort, null);
+    }
+
     // AsyncTask for sending message to TCP/IP
     private class SendMessageTask extends AsyncTask<String, Void, Void> {
         @Override
@@ -608,9 +643,7 @@ public class MainActivity extends AppCompatActivity {
     private void onGenerateRandomButtonClick() {
         try {
             // Generate 16-byte (128-bit) random data
-            SecureRandom secureRandom = new SecureRandom();
-            byte[] randomData = new byte[16];
-            secureRandom.nextBytes(randomData);
+            byte[] randomData = entropyPool.nextBytes(16);
             
             // Convert random data to hexadecimal string
             String randomHex = bytesToHex(randomData).toUpperCase();
@@ -685,11 +718,10 @@ public class MainActivity extends AppCompatActivity {
         // Perform MAC calculation and transmission in a separate thread
         new Thread(() -> {
             try {
-                // PSK (Pre-Shared Key) - Use the same PSK as the server
-                String pskHex = "306E538A29ADAB6E8FDD92C02101E9C2306E538A29ADAB6E8FDD92C02101E9C2";
-                byte[] psk = hexStringToBytes(pskHex);
+                // PSK (Pre-Shared Key) - Use the same PSK as the server, parsed and keyed only once
+                HmacContextCache.Context hmacContext = hmacContextCache.context(PSK_ID, () -> hexStringToBytes(PSK_HEX));
                 
-                if (psk == null) {
+                if (hmacContext == null) {
                     runOnUiThread(() -> appendToMessageHistory("❌ PSK conversion failed"));
                     return;
                 }
@@ -707,18 +739,10 @@ public class MainActivity extends AppCompatActivity {
                     return;
                 }
                 
-                // Combine NonceC + NonceS (in the same order as the server)
-                byte[] combinedData = new byte[nonceC.length + serverChallenge.length];
-                System.arraycopy(nonceC, 0, combinedData, 0, nonceC.length);
-                System.arraycopy(serverChallenge, 0, combinedData, nonceC.length, serverChallenge.length);
-                
-                // HMAC calculation
+                // HMAC calculation over NonceC + NonceS (in the same order as the server)
                 byte[] macValue = null;
                 try {
-                    Mac mac = Mac.getInstance("HmacSHA256");
-                    SecretKeySpec secretKeySpec = new SecretKeySpec(psk, "HmacSHA256");
-                    mac.init(secretKeySpec);
-                    macValue = mac.doFinal(combinedData);
+                    macValue = hmacContext.doFinal(nonceC, serverChallenge);
                 } catch (Exception e) {
                     Log.e("MainActivity", "HMAC calculation error", e);
                     runOnUiThread(() -> appendToMessageHistory("❌ HMAC calculation error: " + e.getMessage()));
@@ -732,11 +756,8 @@ public class MainActivity extends AppCompatActivity {
                 // Update UI
                 runOnUiThread(() -> appendToMessageHistory("4️⃣ Calculated MAC: " + macHex));
                 
-                // Create message (formatted for server)
-                String message = "HMAC: " + macHex;
-                
-                // Send to server
-                tcpClient.sendMessage(message);
+                // Send to server (hex text line, or a raw HMAC record in binary mode)
+                tcpClient.sendHmac(macValue);
                 
                 // Set macSent flag and display message
                 synchronized (messageLock) {
@@ -792,6 +813,38 @@ public class MainActivity extends AppCompatActivity {
     }
 
     // Server message handler
+    // Classify a server line on the receive thread without building a String for the common cases
+    private void handleServerLine(int type, LineView line) {
+        switch (type) {
+            case AuthClient.LINE_NONCE_S: {
+                int colonIndex = line.indexOf(':');
+                final byte[] nonce = colonIndex < 0 ? null : line.decodeHex(colonIndex + 1);
+                runOnUiThread(() -> {
+                    if (nonce == null) {
+                        appendToMessageHistory("❌ Invalid NonceS format");
+                        return;
+                    }
+                    serverChallenge = nonce;
+                    appendToMessageHistory("3️⃣ Received NonceS from server: " + bytesToHex(nonce));
+                });
+                break;
+            }
+            case AuthClient.LINE_SUCCESS:
+            case AuthClient.LINE_FAILED:
+                // Store authentication result
+                synchronized (messageLock) {
+                    serverAuthResult = type == AuthClient.LINE_SUCCESS ? "SUCCESS" : "FAILED";
+                    messageLock.notifyAll();
+                }
+                break;
+            default: {
+                final String message = line.toString();
+                runOnUiThread(() -> handleServerMessage(message));
+                break;
+            }
+        }
+    }
+
     private void handleServerMessage(String message) {
         Log.d("MainActivity", "Server message received: '" + message + "'");
 
@@ -842,6 +895,26 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Handle binary records from the server (binary wire format only)
+    private void handleServerRecord(int type, byte[] value) {
+        switch (type) {
+            case AuthRecord.NONCE_S:
+                serverChallenge = value;
+                appendToMessageHistory("3️⃣ Received NonceS from server: " + bytesToHex(value));
+                break;
+            case AuthRecord.AUTH_RESULT:
+                synchronized (messageLock) {
+                    boolean success = value.length == 1 && value[0] == AuthRecord.RESULT_SUCCESS;
+                    serverAuthResult = success ? "SUCCESS" : "FAILED";
+                    messageLock.notifyAll();
+                }
+                break;
+            default:
+                appendToMessageHistory("Server record 0x" + Integer.toHexString(type) + " [" + value.length + "]");
+                break;
+        }
+    }
+
     /**
      * Convert hexadecimal string to byte array
      */
@@ -878,13 +951,7 @@ public class MainActivity extends AppCompatActivity {
      * Convert byte array to hexadecimal string
      */
     private String bytesToHex(byte[] bytes) {
-        if (bytes == null) return "null";
-        
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
+        return TraceLog.hex(bytes);
     }
 
     // USB serial encryption module test button click event handler
@@ -944,7 +1011,7 @@ public class MainActivity extends AppCompatActivity {
                 });
                 
                 // Prepare PSK data (example)
-                String pskHex = "306E538A29ADAB6E8FDD92C02101E9C2306E538A29ADAB6E8FDD92C02101E9C2";
+                String pskHex = PSK_HEX;
                 byte[] pskData = hexStringToBytes(pskHex);
                 
                 if (pskData == null) {
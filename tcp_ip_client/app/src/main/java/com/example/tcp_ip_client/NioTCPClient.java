@@ -0,0 +1,290 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Selector 기반 논블로킹 TCP 세션
+ *
+ * TCPClient 와 같은 프로토콜(텍스트 줄, 요청 ID, 바이너리 레코드)을 AuthClient 에서 물려받지만 세션마다 스레드를 만들지 않는다.
+ * 연결/읽기/쓰기는 모두 TcpEventLoop 스레드 하나에서 처리되므로 수백 개 세션을 동시에 열어 둘 수 있다.
+ * 쓰기는 세션별 direct ByteBuffer 를 사용하고, 읽기는 LineView 가 수신 배열을 그대로 가리킬 수 있도록
+ * heap ByteBuffer 에 받아 그 자리에서 줄/레코드로 자른다 (바이트 단위 복사나 줄마다 String 생성 없음).
+ *
+ * 리스너는 이벤트 루프 스레드에서 호출되므로 오래 걸리는 작업은 다른 스레드로 넘겨야 한다.
+ */
+public class NioTCPClient extends AuthClient {
+    private static final String TAG = "NioTCPClient";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int CONNECT_TIMEOUT = 10000; // 10초
+
+    private final TcpEventLoop loop;
+
+    // 아래 필드는 이벤트 루프 스레드에서만 사용
+    private SocketChannel channel;
+    private SelectionKey key;
+    // 쓰기 모드 상태로 유지, [readStart, position) 이 아직 처리하지 못한 수신 데이터
+    private ByteBuffer readBuffer = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+    private int readStart = 0;
+    // 쓰기 모드(채우는 중) 상태로 유지
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // 보낼 메시지 (어느 스레드에서든 추가)
+    private final ConcurrentLinkedQueue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final CompletableFuture<Boolean> connectFuture = new CompletableFuture<>();
+    private volatile boolean isConnected = false;
+    private volatile boolean closed = false;
+
+    public NioTCPClient(TcpEventLoop loop, String serverIP, int serverPort,
+                        OnMessageReceviedListener listener) {
+        super(serverIP, serverPort, listener);
+        this.loop = loop;
+    }
+
+    /**
+     * 서버에 연결 (연결이 끝나거나 타임아웃될 때까지 대기)
+     * @return 성공 여부
+     */
+    @Override
+    public boolean connect() {
+        try {
+            return connectAsync().get(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "서버 연결 실패: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            Log.e(TAG, "서버 연결 타임아웃: " + serverIP + ":" + serverPort);
+            disconnect();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            disconnect();
+        }
+        return false;
+    }
+
+    /**
+     * 서버에 연결 (비동기)
+     * 연결 전에 보낸 메시지는 연결되는 즉시 전송된다.
+     * @return 연결 완료 future, 실패시 예외로 완료
+     */
+    public CompletableFuture<Boolean> connectAsync() {
+        // 이름 해석은 이벤트 루프를 막지 않도록 호출 스레드에서 함
+        final InetSocketAddress address = new InetSocketAddress(serverIP, serverPort);
+        loop.execute(() -> {
+            if (closed || channel != null) {
+                return;
+            }
+            try {
+                Log.d(TAG, "서버 연결 시도: " + serverIP + ":" + serverPort);
+                resetSession();
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                key = channel.register(loop.selector(), SelectionKey.OP_CONNECT, this);
+                if (channel.connect(address)) {
+                    finishConnect();
+                }
+            } catch (IOException | RuntimeException e) {
+                close(e);
+            }
+        });
+        return connectFuture;
+    }
+
+    /**
+     * 인코딩된 메시지를 큐에 넣고 바로 반환
+     * 여러 메시지가 쌓이면 한 번의 write 로 함께 보낸다.
+     */
+    @Override
+    protected void enqueue(byte[] encoded) {
+        if (closed) {
+            Log.e(TAG, "메시지 전송 실패: 연결 종료됨");
+            return;
+        }
+        writeQueue.add(ByteBuffer.wrap(encoded));
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::scheduledFlush);
+        }
+    }
+
+    /**
+     * 수신 시작
+     * 연결이 끝나면 이벤트 루프가 바로 읽기 시작하므로 따로 할 일은 없다.
+     */
+    @Override
+    public void startListening() {
+        if (!isConnected()) {
+            Log.e(TAG, "수신 시작 실패: 연결되지 않음");
+        }
+    }
+
+    /**
+     * 연결 종료
+     */
+    @Override
+    public void disconnect() {
+        loop.execute(() -> close(null));
+    }
+
+    // 연결 상태 확인
+    @Override
+    public boolean isConnected() {
+        return isConnected && !closed;
+    }
+
+    /**
+     * 준비된 이벤트 처리 (이벤트 루프 스레드)
+     */
+    void handle(SelectionKey key) throws IOException {
+        if (key.isConnectable()) {
+            finishConnect();
+            return;
+        }
+        if (key.isReadable()) {
+            read();
+        }
+        if (key.isValid() && key.isWritable()) {
+            flush();
+        }
+    }
+
+    private void finishConnect() throws IOException {
+        if (!channel.finishConnect()) {
+            return;
+        }
+        isConnected = true;
+        Log.d(TAG, "서버 연결 완료: " + serverIP + ":" + serverPort);
+        key.interestOps(SelectionKey.OP_READ);
+        connectFuture.complete(true);
+        // 연결 전에 쌓인 메시지 전송
+        flush();
+    }
+
+    private void scheduledFlush() {
+        flushScheduled.set(false);
+        if (!isConnected || closed) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    /**
+     * 큐의 메시지를 direct 버퍼로 옮겨 보낼 수 있는 만큼 전송
+     * 소켓 송신 버퍼가 차면 OP_WRITE 를 켜고 다음 이벤트에서 이어서 보낸다.
+     */
+    private void flush() throws IOException {
+        while (true) {
+            ByteBuffer head;
+            while (writeBuffer.hasRemaining() && (head = writeQueue.peek()) != null) {
+                int n = Math.min(writeBuffer.remaining(), head.remaining());
+                int limit = head.limit();
+                head.limit(head.position() + n);
+                writeBuffer.put(head);
+                head.limit(limit);
+                if (!head.hasRemaining()) {
+                    writeQueue.poll();
+                }
+            }
+
+            writeBuffer.flip();
+            channel.write(writeBuffer);
+            boolean drained = !writeBuffer.hasRemaining();
+            writeBuffer.compact();
+
+            if (!drained) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            if (writeQueue.isEmpty()) {
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 수신 데이터를 받은 자리에서 줄/레코드로 잘라 처리
+     */
+    private void read() throws IOException {
+        if (!readBuffer.hasRemaining()) {
+            makeRoom();
+        }
+        int n = channel.read(readBuffer);
+        if (n < 0) {
+            Log.d(TAG, "서버가 연결을 종료했습니다.");
+            close(null);
+            return;
+        }
+
+        int end = readBuffer.position();
+        readStart = dispatch(readBuffer.array(), readStart, end);
+        if (readStart == end) {
+            readBuffer.clear();
+            readStart = 0;
+        }
+    }
+
+    /**
+     * 처리한 앞부분을 버리거나 버퍼를 키워 읽을 자리를 만듦
+     */
+    private void makeRoom() throws IOException {
+        byte[] array = readBuffer.array();
+        int end = readBuffer.position();
+        if (readStart > 0) {
+            System.arraycopy(array, readStart, array, 0, end - readStart);
+            readBuffer.position(end - readStart);
+            readStart = 0;
+        } else if (array.length < MAX_RECEIVE_SIZE) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(array.length * 2, MAX_RECEIVE_SIZE));
+            larger.put(array, 0, end);
+            readBuffer = larger;
+        } else {
+            throw new IOException("수신 메시지 최대 길이 초과");
+        }
+    }
+
+    /**
+     * 채널 닫기 (이벤트 루프 스레드)
+     */
+    void close(Exception cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        isConnected = false;
+        if (cause != null) {
+            Log.e(TAG, "연결 오류: " + cause.getMessage(), cause);
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.e(TAG, "채널 닫기 오류", e);
+            }
+        }
+        writeQueue.clear();
+        failPendingRequests(new IOException("연결 종료됨"));
+        connectFuture.completeExceptionally(cause != null ? cause : new IOException("연결 종료됨"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.tcp_ip_client;
+
+import java.util.Arrays;
+
+/**
+ * QSIM PSK 슬롯 캐시
+ *
+ * 한 번 읽어 온 PSK 를 슬롯별로 보관해 같은 키를 다시 읽을 때 USB 왕복을 생략한다.
+ * 값은 항상 복사해서 넘기고, 무효화할 때 보관하던 배열을 0 으로 지운다.
+ * PSK 저장, 장치 분리(close) 시 무효화해야 한다.
+ */
+public class PskCache {
+    // 슬롯 번호는 1바이트
+    private final byte[][] slots = new byte[256][];
+    // 무효화될 때마다 증가, 읽는 도중 무효화된 값을 저장하지 않기 위해 사용
+    private long generation = 0;
+
+    /**
+     * 캐시된 PSK 복사본
+     * @return PSK, 캐시에 없으면 null
+     */
+    public synchronized byte[] get(int slot) {
+        byte[] psk = slots[slot & 0xFF];
+        return psk != null ? psk.clone() : null;
+    }
+
+    /**
+     * 현재 세대 값 (읽기 요청을 보내기 전에 받아 둠)
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * PSK 보관 (psk 는 복사해서 저장)
+     * 요청을 보낸 뒤 무효화가 있었으면 저장하지 않는다.
+     * @param requestGeneration 읽기 요청 전에 받은 generation()
+     */
+    public synchronized void put(int slot, byte[] psk, long requestGeneration) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        byte[] old = slots[slot & 0xFF];
+        if (old != null) {
+            Arrays.fill(old, (byte) 0);
+        }
+        slots[slot & 0xFF] = psk.clone();
+    }
+
+    /**
+     * 슬롯 하나 무효화
+     */
+    public synchronized void invalidate(int slot) {
+        generation++;
+        byte[] psk = slots[slot & 0xFF];
+        if (psk != null) {
+            Arrays.fill(psk, (byte) 0);
+            slots[slot & 0xFF] = null;
+        }
+    }
+
+    /**
+     * 전체 무효화
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            invalidate(i);
+        }
+    }
+}
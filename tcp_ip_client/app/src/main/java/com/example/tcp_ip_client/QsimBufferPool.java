@@ -0,0 +1,79 @@
+package com.example.tcp_ip_client;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * QSIM 프레임 배열 풀
+ *
+ * 프레임 길이별 슬랩에 다 쓴 배열을 모아 두었다가 같은 길이 요청에 다시 내준다.
+ * 배열은 항상 요청한 길이와 정확히 같으므로 frame.length 를 프레임 길이로 쓰는 기존 코드를 그대로 쓸 수 있다.
+ * 대량 암호화처럼 같은 크기 프레임이 반복되는 구간에서 요청/응답 배열 할당을 없애기 위한 용도다.
+ *
+ * 소유권: acquire() 로 받은 쪽이 소유하고, 다음 단계로 넘기면 소유권도 넘어간다.
+ * 마지막 소유자만 release() 할 수 있으며, release() 후에는 배열을 읽거나 쓰면 안 된다.
+ * 반납하지 않은 배열은 GC 가 회수하므로 반납은 선택이다.
+ *
+ * UsbSerialPort 와 SerialInputOutputManager 가 byte[] 만 받으므로 direct ByteBuffer 는 사용하지 않는다.
+ */
+public final class QsimBufferPool {
+    // 풀에 보관할 최대 프레임 길이
+    private static final int MAX_POOLED_LENGTH =
+            QsimFrameDecoder.HEADER_SIZE + QsimFrameDecoder.MAX_PAYLOAD_SIZE + QsimFrameDecoder.TRAILER_SIZE;
+    // 길이별 최대 보관 개수
+    private static final int MAX_PER_SLAB = 16;
+
+    private static final QsimBufferPool SHARED = new QsimBufferPool();
+
+    private static final class Slab {
+        final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    private final AtomicReferenceArray<Slab> slabs = new AtomicReferenceArray<>(MAX_POOLED_LENGTH + 1);
+
+    /**
+     * 인코더, I/O 스레드, 디코더가 함께 쓰는 풀
+     */
+    public static QsimBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * length 바이트 배열 얻기 (내용은 이전 사용 값이 남아 있을 수 있음)
+     */
+    public byte[] acquire(int length) {
+        if (length <= 0 || length > MAX_POOLED_LENGTH) {
+            return new byte[Math.max(0, length)];
+        }
+        Slab slab = slabs.get(length);
+        if (slab != null) {
+            byte[] buffer = slab.free.poll();
+            if (buffer != null) {
+                slab.size.decrementAndGet();
+                return buffer;
+            }
+        }
+        return new byte[length];
+    }
+
+    /**
+     * 배열 반납 (null 은 무시)
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length == 0 || buffer.length > MAX_POOLED_LENGTH) {
+            return;
+        }
+        Slab slab = slabs.get(buffer.length);
+        if (slab == null) {
+            slabs.compareAndSet(buffer.length, null, new Slab());
+            slab = slabs.get(buffer.length);
+        }
+        if (slab.size.incrementAndGet() > MAX_PER_SLAB) {
+            slab.size.decrementAndGet();
+            return;
+        }
+        slab.free.offer(buffer);
+    }
+}
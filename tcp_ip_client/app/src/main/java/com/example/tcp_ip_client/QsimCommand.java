@@ -0,0 +1,174 @@
+package com.example.tcp_ip_client;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * QSIM 명령 표
+ *
+ * 명령마다 명령 코드, 파라미터 바이트, 요청 페이로드 크기, 응답 페이로드 크기를 정의한다.
+ * 프레임 = [0xD4][명령][파라미터][길이 2바이트][페이로드][CRC 2바이트][0xD8]
+ *
+ * 페이로드가 고정된 프레임(VERSION, LEA 모드 설정 등)은 처음 한 번만 만들어 같은 배열을 돌려주고,
+ * 슬롯 번호 하나만 들어가는 프레임(PSK 불러오기)은 슬롯별로 한 번만 만든다.
+ * 돌려받은 템플릿 배열은 여러 요청이 공유하므로 수정하면 안 된다.
+ */
+public enum QsimCommand {
+    VERSION(0x01, 0x00, 0, QsimCommand.VARIABLE),
+    // 키 설정: 페이로드 = 16바이트 키
+    LEA_KEY(0x34, 0x24, 16, 0),
+    // 모드 설정: 페이로드 = "ECB"
+    LEA_MODE_ECB(0x39, 0x2D, new byte[] {0x45, 0x43, 0x42}, 0),
+    // 데이터: 페이로드 = 16바이트 배수 평문, 응답 = 같은 길이 암호문
+    LEA_DATA(0x3A, 0x2D, QsimCommand.VARIABLE, QsimCommand.VARIABLE),
+    // PSK 저장: 페이로드 = [슬롯][PSK]
+    PSK_SAVE(0x19, 0x00, QsimCommand.VARIABLE, QsimCommand.VARIABLE),
+    // PSK 불러오기: 페이로드 = [슬롯], 응답 = [슬롯][PSK]
+    PSK_GET(0x1A, 0x00, 1, QsimCommand.VARIABLE);
+
+    // 페이로드 크기가 정해져 있지 않음
+    static final int VARIABLE = -1;
+
+    static final int HEADER_SIZE = QsimFrameDecoder.HEADER_SIZE;
+    static final int TRAILER_SIZE = QsimFrameDecoder.TRAILER_SIZE;
+
+    private final byte code;
+    private final byte param;
+    private final int payloadSize;
+    private final int responsePayloadSize;
+    // 고정 페이로드 (없으면 null)
+    private final byte[] fixedPayload;
+
+    // 미리 만든 프레임
+    private volatile byte[] template;
+    private final AtomicReferenceArray<byte[]> slotTemplates;
+
+    QsimCommand(int code, int param, int payloadSize, int responsePayloadSize) {
+        this.code = (byte) code;
+        this.param = (byte) param;
+        this.payloadSize = payloadSize;
+        this.responsePayloadSize = responsePayloadSize;
+        this.fixedPayload = payloadSize == 0 ? new byte[0] : null;
+        this.slotTemplates = payloadSize == 1 ? new AtomicReferenceArray<byte[]>(256) : null;
+    }
+
+    QsimCommand(int code, int param, byte[] fixedPayload, int responsePayloadSize) {
+        this.code = (byte) code;
+        this.param = (byte) param;
+        this.payloadSize = fixedPayload.length;
+        this.responsePayloadSize = responsePayloadSize;
+        this.fixedPayload = fixedPayload;
+        this.slotTemplates = null;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * 응답 명령 코드 (명령 | 0x80)
+     */
+    public byte responseCode() {
+        return QsimCommandExecutor.responseCommandOf(code);
+    }
+
+    /**
+     * 요청 페이로드 크기, 정해져 있지 않으면 VARIABLE
+     */
+    public int payloadSize() {
+        return payloadSize;
+    }
+
+    /**
+     * 응답 페이로드 크기, 정해져 있지 않으면 VARIABLE
+     */
+    public int responsePayloadSize() {
+        return responsePayloadSize;
+    }
+
+    /**
+     * 고정 페이로드 명령의 프레임 (공유 배열, 수정 금지)
+     */
+    public byte[] template() {
+        if (fixedPayload == null) {
+            throw new IllegalStateException(name() + " 은 고정 프레임이 아닙니다");
+        }
+        byte[] frame = template;
+        if (frame == null) {
+            // 풀 배열과 섞이지 않도록 직접 할당
+            frame = new byte[HEADER_SIZE + fixedPayload.length + TRAILER_SIZE];
+            encodeInto(frame, fixedPayload, 0, fixedPayload.length);
+            template = frame;
+        }
+        return frame;
+    }
+
+    /**
+     * 슬롯 번호 하나가 페이로드인 명령의 프레임 (슬롯별 공유 배열, 수정 금지)
+     */
+    public byte[] template(int slot) {
+        if (slotTemplates == null) {
+            throw new IllegalStateException(name() + " 은 슬롯 프레임이 아닙니다");
+        }
+        byte[] frame = slotTemplates.get(slot & 0xFF);
+        if (frame == null) {
+            frame = new byte[HEADER_SIZE + 1 + TRAILER_SIZE];
+            encodeInto(frame, new byte[] {(byte) slot}, 0, 1);
+            slotTemplates.set(slot & 0xFF, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * 요청 프레임 생성 (배열은 QsimBufferPool 에서 받음)
+     */
+    public byte[] encode(byte[] payload, int offset, int length) {
+        checkLength(length);
+        byte[] frame = QsimBufferPool.shared().acquire(HEADER_SIZE + length + TRAILER_SIZE);
+        encodeInto(frame, payload, offset, length);
+        return frame;
+    }
+
+    /**
+     * 앞에 1바이트(슬롯 번호 등)를 붙인 요청 프레임 생성
+     */
+    public byte[] encode(int prefix, byte[] payload, int offset, int length) {
+        checkLength(length + 1);
+        byte[] frame = QsimBufferPool.shared().acquire(HEADER_SIZE + 1 + length + TRAILER_SIZE);
+        writeHeader(frame, length + 1);
+        frame[HEADER_SIZE] = (byte) prefix;
+        System.arraycopy(payload, offset, frame, HEADER_SIZE + 1, length);
+        QsimCrc.seal(frame); // 체크섬 + 테일
+        return frame;
+    }
+
+    /**
+     * dst 앞부분에 요청 프레임을 씀
+     * @param dst HEADER_SIZE + length + TRAILER_SIZE 이상 크기의 버퍼
+     * @return 프레임 길이
+     */
+    public int encodeInto(byte[] dst, byte[] payload, int offset, int length) {
+        checkLength(length);
+        int frameLength = HEADER_SIZE + length + TRAILER_SIZE;
+        writeHeader(dst, length);
+        System.arraycopy(payload, offset, dst, HEADER_SIZE, length);
+        QsimCrc.seal(dst, frameLength); // 체크섬 + 테일
+        return frameLength;
+    }
+
+    private void writeHeader(byte[] frame, int length) {
+        frame[0] = QsimFrameDecoder.HEADER;
+        frame[1] = code;
+        frame[2] = param;
+        frame[3] = (byte) ((length >> 8) & 0xFF);
+        frame[4] = (byte) (length & 0xFF);
+    }
+
+    private void checkLength(int length) {
+        if (payloadSize != VARIABLE && length != payloadSize) {
+            throw new IllegalArgumentException(name() + " 페이로드 길이 오류: " + length);
+        }
+        if (length > QsimFrameDecoder.MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException(name() + " 페이로드 최대 길이 초과: " + length);
+        }
+    }
+}
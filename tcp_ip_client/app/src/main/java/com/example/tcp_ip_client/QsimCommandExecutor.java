@@ -0,0 +1,588 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+import com.hoho.android.usbserial.driver.UsbSerialPort;
+import com.hoho.android.usbserial.util.SerialInputOutputManager;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시리얼 포트 전용 I/O 스레드
+ *
+ * 쓰기는 이 클래스의 스레드 하나만 수행하고, 읽기는 SerialInputOutputManager 콜백으로만 받는다.
+ * 호출하는 쪽은 submit() 으로 요청을 큐에 넣고 CompletableFuture 로 응답 프레임을 받는다.
+ * 프레임이 완성되는 즉시 수신 콜백에서 future 를 완료하므로 sleep/poll 대기가 없다.
+ * 요청이 없는 동안 들어오는 프레임은 FrameListener 로 전달된다.
+ *
+ * 응답은 명령 코드에 0x80 을 더한 값으로 돌아오므로 (0x34 -> 0xB4, 0x3A -> 0xBA)
+ * 보낸 순서(sequence)대로 대기 중인 요청과 응답 명령 코드를 맞춰본다.
+ * 타임아웃된 요청의 늦은 응답은 도착하는 시점에 버리므로 전송 전에 포트를 비울 필요가 없다.
+ * 늦은 응답은 타임아웃 뒤 TIMEOUT 동안만 기다리며, 그 뒤에 온 응답은 다음 요청의 응답으로 본다.
+ * 체크섬이 틀린 응답을 받으면 타임아웃까지 기다리지 않고 해당 요청을 바로 실패 처리한다.
+ *
+ * submitPipelined() 로 넣은 요청은 응답을 기다리지 않고 윈도우 크기만큼 연달아 보낸다.
+ * 체크섬 오류/응답 누락/타임아웃이 나면 윈도우를 절반으로 줄이고,
+ * 응답이 밀리면 하나씩 줄이며, 연속으로 성공하면 설정값까지 하나씩 늘린다.
+ */
+public class QsimCommandExecutor {
+    private static final String TAG = "QsimCommandExecutor";
+    static final int TIMEOUT = 2000; // 2초 타임아웃
+    private static final int IDLE_WAIT = 1000; // 대기 중인 요청이 없을 때 큐 대기 시간
+    private static final int SLOW_RESPONSE = TIMEOUT / 4; // 이보다 늦게 온 응답은 밀린 것으로 봄
+
+    public static final int DEFAULT_PIPELINE_WINDOW = 4;
+
+    // 요청 외에 수신된 프레임 리스너
+    public interface FrameListener {
+        void onFrame(byte[] frame);
+    }
+
+    private static class Command {
+        final long sequence;
+        final byte[] request;
+        final byte responseCommand;
+        final boolean pipelined;
+        // 전송 후 요청 배열을 풀에 반납 (소유권이 I/O 스레드로 넘어온 요청)
+        final boolean releaseRequest;
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        long sentAt;
+        // 대기 중에 같은 명령 코드의 늦은 응답을 버린 적이 있음 (lock 으로 보호)
+        // 버린 응답이 이 요청의 것이었을 수 있으므로 타임아웃돼도 늦은 응답을 더 기다리지 않는다.
+        boolean staleDropped;
+
+        Command(long sequence, byte[] request, boolean pipelined, boolean releaseRequest) {
+            this.sequence = sequence;
+            this.request = request;
+            this.responseCommand = responseCommandOf(request[1]);
+            this.pipelined = pipelined;
+            this.releaseRequest = releaseRequest;
+        }
+    }
+
+    /**
+     * 요청 명령 코드에 대응하는 응답 명령 코드
+     */
+    public static byte responseCommandOf(byte requestCommand) {
+        return (byte)(requestCommand | 0x80);
+    }
+
+    private final UsbSerialPort serialPort;
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    // 아래 필드는 lock 으로 보호 (수신 콜백 스레드와 I/O 스레드가 함께 사용)
+    private final Object lock = new Object();
+    private final QsimFrameDecoder decoder = new QsimFrameDecoder();
+    // 전송 순서대로 응답을 기다리는 요청
+    private final ArrayDeque<Command> inFlight = new ArrayDeque<>();
+    // 응답 명령 코드별로 타임아웃된 요청 수와 늦은 응답을 기다리는 기한 (늦게 도착한 응답을 버리기 위함)
+    private final int[] lateResponses = new int[256];
+    private final long[] lateDeadlines = new long[256];
+    // 파이프라인 윈도우: 설정값, 현재값, 연속 성공 횟수
+    private int maxWindow = DEFAULT_PIPELINE_WINDOW;
+    private int window = DEFAULT_PIPELINE_WINDOW;
+    private int successStreak = 0;
+
+    private volatile FrameListener frameListener;
+    private volatile boolean running = false;
+    private Thread ioThread;
+    private SerialInputOutputManager ioManager;
+
+    public QsimCommandExecutor(UsbSerialPort port) {
+        this.serialPort = port;
+    }
+
+    /**
+     * 수신 콜백과 I/O 스레드 시작
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        ioManager = new SerialInputOutputManager(serialPort, new SerialInputOutputManager.Listener() {
+            @Override
+            public void onNewData(byte[] data) {
+                onReceived(data);
+            }
+
+            @Override
+            public void onRunError(Exception e) {
+                Log.e(TAG, "수신 오류: " + e.getMessage(), e);
+                onReaderStopped(e);
+            }
+        });
+        ioManager.start();
+        startIoThread();
+    }
+
+    /**
+     * 수신 콜백 없이 I/O 스레드만 시작 (수신 데이터는 onReceived 로 직접 넣음, 단위 테스트용)
+     */
+    synchronized void startWithoutReader() {
+        if (running) {
+            return;
+        }
+        running = true;
+        startIoThread();
+    }
+
+    private void startIoThread() {
+        ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "QsimIO");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * I/O 스레드 종료, 처리되지 않은 요청은 모두 실패 처리
+     */
+    public synchronized void stop() {
+        running = false;
+        if (ioManager != null) {
+            ioManager.stop();
+            ioManager = null;
+        }
+        if (ioThread != null) {
+            ioThread.interrupt();
+            try {
+                ioThread.join(TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ioThread = null;
+        }
+
+        failAll(new IOException("Serial executor stopped"));
+    }
+
+    /**
+     * 수신 콜백이 오류로 끝났을 때 실행기 종료
+     * 읽는 쪽이 없으므로 stop() 과 같이 남은 요청을 모두 실패 처리하고 이후 요청은 바로 실패시킨다.
+     */
+    synchronized void onReaderStopped(Exception cause) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // 수신 스레드는 이미 끝났으므로 ioManager.stop() 은 부르지 않음
+        ioManager = null;
+        if (ioThread != null) {
+            ioThread.interrupt();
+            ioThread = null;
+        }
+        failAll(new IOException("Serial reader stopped", cause));
+    }
+
+    /**
+     * 대기 목록과 큐에 남은 요청을 모두 실패 처리
+     */
+    private void failAll(IOException cause) {
+        failAllInFlight(cause);
+        Command command;
+        while ((command = queue.poll()) != null) {
+            command.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 요청을 큐에 넣음
+     * 앞서 보낸 요청의 응답을 모두 받은 뒤에 전송된다.
+     * 반환된 future 는 수신 콜백 스레드에서 완료되므로 콜백에서 오래 블록하면 안된다.
+     * @param request 요청 프레임
+     * @return 응답 프레임 future
+     */
+    public CompletableFuture<byte[]> submit(byte[] request) {
+        return enqueue(request, false, false);
+    }
+
+    /**
+     * 파이프라인 요청을 큐에 넣음
+     * 앞선 파이프라인 요청의 응답을 기다리지 않고 윈도우 크기만큼 연달아 전송된다.
+     * 응답이 보낸 순서대로 돌아오는 명령(LEA 데이터 0x3A 등)에만 사용해야 한다.
+     * @param request 요청 프레임
+     * @return 응답 프레임 future
+     */
+    public CompletableFuture<byte[]> submitPipelined(byte[] request) {
+        return enqueue(request, true, false);
+    }
+
+    /**
+     * 풀에서 받은 요청 배열을 넘기는 파이프라인 요청
+     * 배열 소유권이 I/O 스레드로 넘어가며, 전송이 끝나면 QsimBufferPool 에 반납된다.
+     * 공유 템플릿(QsimCommand.template())은 넘기면 안 된다.
+     * @param request 요청 프레임 (호출 후 사용 금지)
+     * @return 응답 프레임 future, 응답 배열 소유권은 받는 쪽으로 넘어감
+     */
+    public CompletableFuture<byte[]> submitPipelinedReleasing(byte[] request) {
+        return enqueue(request, true, true);
+    }
+
+    private CompletableFuture<byte[]> enqueue(byte[] request, boolean pipelined, boolean releaseRequest) {
+        Command command = new Command(nextSequence.getAndIncrement(), request, pipelined, releaseRequest);
+        if (!running) {
+            command.future.completeExceptionally(new IOException("Serial executor is not running"));
+            return command.future;
+        }
+        queue.add(command);
+        return command.future;
+    }
+
+    /**
+     * 파이프라인 윈도우 최대 크기 설정
+     * @param size 동시에 응답을 기다릴 수 있는 최대 요청 수 (1 이면 파이프라인 사용 안함)
+     */
+    public void setPipelineWindow(int size) {
+        synchronized (lock) {
+            maxWindow = Math.max(1, size);
+            window = maxWindow;
+            successStreak = 0;
+        }
+    }
+
+    /**
+     * 현재 파이프라인 윈도우 크기
+     */
+    public int getPipelineWindow() {
+        synchronized (lock) {
+            return window;
+        }
+    }
+
+    /**
+     * 요청과 관계없이 수신된 프레임 리스너 설정
+     */
+    public void setFrameListener(FrameListener listener) {
+        this.frameListener = listener;
+    }
+
+    private void runLoop() {
+        Log.d(TAG, "I/O 스레드 시작");
+        while (running) {
+            Command command = null;
+            try {
+                // 새 요청이 들어오면 바로 깨어나고, 없으면 가장 오래된 요청의 타임아웃까지 대기
+                command = queue.poll(nextTimeoutWait(), TimeUnit.MILLISECONDS);
+                expireTimedOut();
+                if (command == null) {
+                    continue;
+                }
+
+                awaitWindow(command);
+
+                // 요청 전송
+                serialPort.write(command.request, TIMEOUT);
+            } catch (InterruptedException e) {
+                // 종료: 큐에서 꺼냈지만 아직 보내지 못한 요청은 stop() 이 볼 수 없으므로 여기서 실패 처리
+                if (command != null) {
+                    command.future.completeExceptionally(new IOException("Serial executor stopped"));
+                }
+                break;
+            } catch (Exception e) {
+                Log.e(TAG, "요청 처리 오류: " + e.getMessage(), e);
+                if (command != null && removeInFlight(command)) {
+                    command.future.completeExceptionally(e);
+                }
+            } finally {
+                // 전송이 끝나면 요청 배열은 더 필요 없음 (재전송하지 않음)
+                if (command != null && command.releaseRequest) {
+                    QsimBufferPool.shared().release(command.request);
+                }
+            }
+        }
+        Log.d(TAG, "I/O 스레드 종료");
+    }
+
+    /**
+     * 요청을 보낼 수 있을 때까지 대기 후 대기 목록에 추가
+     * 일반 요청은 대기 목록이 빌 때까지, 파이프라인 요청은 윈도우에 자리가 날 때까지 기다린다.
+     */
+    private void awaitWindow(Command command) throws InterruptedException {
+        while (true) {
+            List<Command> expired = null;
+            synchronized (lock) {
+                // 종료 중이면 보내지 않음 (stop/수신 오류가 대기 목록을 비운 뒤에 추가되지 않도록 lock 안에서 확인)
+                if (!running) {
+                    throw new InterruptedException("Serial executor stopped");
+                }
+                boolean canSend;
+                if (command.pipelined) {
+                    canSend = inFlight.size() < window && allPipelined();
+                } else {
+                    canSend = inFlight.isEmpty();
+                }
+                if (canSend) {
+                    command.sentAt = System.currentTimeMillis();
+                    inFlight.addLast(command);
+                    return;
+                }
+
+                long wait = inFlight.peekFirst().sentAt + TIMEOUT - System.currentTimeMillis();
+                if (wait > 0) {
+                    // 응답을 받으면 수신 콜백이 깨움
+                    lock.wait(wait);
+                } else {
+                    expired = pollTimedOut();
+                }
+            }
+            completeTimedOut(expired);
+        }
+    }
+
+    private boolean allPipelined() {
+        for (Command command : inFlight) {
+            if (!command.pipelined) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long nextTimeoutWait() {
+        synchronized (lock) {
+            Command head = inFlight.peekFirst();
+            if (head == null) {
+                return IDLE_WAIT;
+            }
+            return Math.max(1, head.sentAt + TIMEOUT - System.currentTimeMillis());
+        }
+    }
+
+    private void expireTimedOut() {
+        List<Command> expired;
+        synchronized (lock) {
+            expired = pollTimedOut();
+        }
+        completeTimedOut(expired);
+    }
+
+    /**
+     * 타임아웃된 요청을 대기 목록에서 꺼냄
+     * 늦게 도착할 응답은 TIMEOUT 동안 버리도록 기록해둔다.
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private List<Command> pollTimedOut() {
+        List<Command> expired = null;
+        long now = System.currentTimeMillis();
+        Command head;
+        while ((head = inFlight.peekFirst()) != null && now - head.sentAt >= TIMEOUT) {
+            inFlight.pollFirst();
+            if (!head.staleDropped) {
+                int index = head.responseCommand & 0xFF;
+                lateResponses[index]++;
+                lateDeadlines[index] = now + TIMEOUT;
+            }
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(head);
+        }
+        if (expired != null) {
+            shrinkWindow();
+        }
+        return expired;
+    }
+
+    private void completeTimedOut(List<Command> expired) {
+        if (expired == null) {
+            return;
+        }
+        for (Command command : expired) {
+            Log.e(TAG, "응답 타임아웃 (seq " + command.sequence + ")");
+            command.future.completeExceptionally(new TimeoutException("응답 타임아웃"));
+        }
+    }
+
+    /**
+     * 수신 콜백: 디코더에 넣고 완성된 프레임을 대기 중인 요청이나 리스너로 전달
+     */
+    void onReceived(byte[] data) {
+        while (true) {
+            Command completed = null;
+            List<Command> lost = null;
+            boolean stale = false;
+            boolean crcValid;
+            byte[] frame;
+            synchronized (lock) {
+                if (data != null) {
+                    decoder.feed(data, 0, data.length);
+                    data = null;
+                }
+                frame = decoder.nextFrame();
+                if (frame == null) {
+                    return;
+                }
+                crcValid = QsimCrc.verify(frame);
+                // 응답은 보낸 순서대로 오므로 타임아웃된 요청의 늦은 응답이 먼저 도착한다.
+                // 같은 명령 코드의 다음 요청에 넘기지 않도록 대기 목록보다 먼저 확인한다.
+                int index = frame[1] & 0xFF;
+                if (lateResponses[index] > 0 && System.currentTimeMillis() >= lateDeadlines[index]) {
+                    // 기다리는 기한이 지나면 응답하지 않은 것으로 봄
+                    lateResponses[index] = 0;
+                }
+                if (lateResponses[index] > 0) {
+                    lateResponses[index]--;
+                    stale = true;
+                    markStaleDropped(frame[1]);
+                } else {
+                    completed = findInFlight(frame[1]);
+                }
+                if (completed != null) {
+                    lost = pollUntil(completed);
+                    if (!crcValid || lost != null) {
+                        shrinkWindow();
+                    } else {
+                        adjustWindow(completed);
+                    }
+                    lock.notifyAll();
+                }
+            }
+
+            if (lost != null) {
+                for (Command command : lost) {
+                    Log.w(TAG, "응답 누락 (seq " + command.sequence + ")");
+                    command.future.completeExceptionally(new IOException("응답 누락"));
+                }
+            }
+
+            if (stale) {
+                TraceLog.frame(TraceLog.INFO, TAG, "늦은 응답 버림", frame, QsimFrameDecoder.HEADER_SIZE);
+                QsimBufferPool.shared().release(frame);
+            } else if (!crcValid) {
+                Log.w(TAG, "체크섬 오류 프레임: " + Integer.toHexString(frame[1] & 0xFF));
+                TraceLog.frame(TraceLog.INFO, TAG, "체크섬 오류 프레임", frame, QsimFrameDecoder.HEADER_SIZE);
+                if (completed != null) {
+                    completed.future.completeExceptionally(new IOException("응답 체크섬 오류"));
+                }
+                QsimBufferPool.shared().release(frame);
+            } else if (completed != null) {
+                completed.future.complete(frame);
+            } else {
+                FrameListener listener = frameListener;
+                if (listener != null) {
+                    listener.onFrame(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * 응답 명령 코드와 맞는 가장 오래된 요청 찾기
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private Command findInFlight(byte responseCommand) {
+        for (Command command : inFlight) {
+            if (command.responseCommand == responseCommand) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 같은 응답 명령 코드를 기다리는 요청에 늦은 응답을 버렸다고 표시
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private void markStaleDropped(byte responseCommand) {
+        for (Command command : inFlight) {
+            if (command.responseCommand == responseCommand) {
+                command.staleDropped = true;
+            }
+        }
+    }
+
+    /**
+     * match 까지 대기 목록에서 꺼냄
+     * match 보다 먼저 보낸 요청은 응답이 유실된 것으로 보고 반환한다.
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private List<Command> pollUntil(Command match) {
+        List<Command> lost = null;
+        Command head;
+        while ((head = inFlight.pollFirst()) != match) {
+            if (lost == null) {
+                lost = new ArrayList<>();
+            }
+            lost.add(head);
+        }
+        return lost;
+    }
+
+    /**
+     * 정상 응답을 받은 뒤 윈도우 조정
+     * 응답이 늦게 왔으면 장치가 밀리는 것으로 보고 하나 줄이고,
+     * 윈도우 크기만큼 연속으로 제때 받으면 하나 늘린다.
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private void adjustWindow(Command command) {
+        if (!command.pipelined) {
+            return;
+        }
+        if (System.currentTimeMillis() - command.sentAt > SLOW_RESPONSE) {
+            if (window > 1) {
+                window--;
+                Log.d(TAG, "응답 지연, 파이프라인 윈도우 축소: " + window);
+            }
+            successStreak = 0;
+            return;
+        }
+        if (window < maxWindow && ++successStreak >= window) {
+            window++;
+            successStreak = 0;
+        }
+    }
+
+    /**
+     * 오류 발생 시 윈도우 절반으로 축소
+     * lock 을 잡은 상태에서 호출해야 함
+     */
+    private void shrinkWindow() {
+        window = Math.max(1, window / 2);
+        successStreak = 0;
+        Log.d(TAG, "파이프라인 윈도우 축소: " + window);
+    }
+
+    /**
+     * 대기 목록에서 요청 제거 (전송 실패)
+     * @return 아직 대기 중이어서 제거했으면 true
+     */
+    private boolean removeInFlight(Command command) {
+        synchronized (lock) {
+            if (!inFlight.remove(command)) {
+                return false;
+            }
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    private void failAllInFlight(Exception e) {
+        Command[] failed;
+        synchronized (lock) {
+            failed = inFlight.toArray(new Command[0]);
+            inFlight.clear();
+            // 더 이상 기다리는 요청이 없으므로 늦은 응답 기록도 지움
+            Arrays.fill(lateResponses, 0);
+            lock.notifyAll();
+        }
+        for (Command command : failed) {
+            command.future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.tcp_ip_client;
+
+/**
+ * QSIM 프레임 체크섬 (CRC-16/X-25)
+ *
+ * 다항식 0x1021 (reflected 0x8408), 초기값 0xFFFF, 최종 XOR 0xFFFF.
+ * 헤더(0xD4)를 제외한 명령 바이트부터 데이터 끝까지 계산하고, 하위 바이트부터 전송한다.
+ * 예) D4 01 00 00 00 | 65 E0 | D8
+ *
+ * 바이트당 분기 없이 256 엔트리 테이블 조회로 계산한다.
+ */
+public final class QsimCrc {
+    private static final int POLY_REFLECTED = 0x8408;
+    private static final int INIT = 0xFFFF;
+    private static final int XOR_OUT = 0xFFFF;
+
+    private static final char[] TABLE = new char[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc >>> 1) ^ (-(crc & 1) & POLY_REFLECTED);
+            }
+            TABLE[i] = (char) crc;
+        }
+    }
+
+    private QsimCrc() {
+    }
+
+    /**
+     * CRC 계산
+     * @param data 데이터
+     * @param offset 시작 위치
+     * @param length 길이
+     * @return 16비트 CRC 값
+     */
+    public static int compute(byte[] data, int offset, int length) {
+        int crc = INIT;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return crc ^ XOR_OUT;
+    }
+
+    /**
+     * 프레임의 체크섬과 테일 채우기
+     * 헤더/명령/파라미터/길이/데이터가 채워진 프레임의 마지막 3바이트를 채운다.
+     * @param frame 전체 프레임 (체크섬 2바이트 + 테일 1바이트 자리 포함)
+     */
+    public static void seal(byte[] frame) {
+        seal(frame, frame.length);
+    }
+
+    /**
+     * 버퍼 앞부분 frameLength 바이트를 프레임으로 보고 체크섬과 테일 채우기
+     * @param frame 프레임이 들어있는 버퍼
+     * @param frameLength 프레임 길이 (체크섬 + 테일 포함)
+     */
+    public static void seal(byte[] frame, int frameLength) {
+        int crcOffset = frameLength - QsimFrameDecoder.TRAILER_SIZE;
+        int crc = compute(frame, 1, crcOffset - 1);
+        frame[crcOffset] = (byte) crc;
+        frame[crcOffset + 1] = (byte) (crc >>> 8);
+        frame[crcOffset + 2] = QsimFrameDecoder.TRAILER;
+    }
+
+    /**
+     * 수신 프레임 체크섬 검증
+     * @param frame 디코더가 잘라낸 전체 프레임
+     * @return 체크섬이 맞으면 true
+     */
+    public static boolean verify(byte[] frame) {
+        if (frame == null || frame.length < QsimFrameDecoder.HEADER_SIZE + QsimFrameDecoder.TRAILER_SIZE) {
+            return false;
+        }
+        int crcOffset = frame.length - QsimFrameDecoder.TRAILER_SIZE;
+        int expected = (frame[crcOffset] & 0xFF) | ((frame[crcOffset + 1] & 0xFF) << 8);
+        return compute(frame, 1, crcOffset - 1) == expected;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+/**
+ * QSIM 응답 프레임 디코더
+ *
+ * 프레임 구조: 헤더(0xD4) + 명령(1) + 파라미터(1) + 길이(2, big-endian) + 데이터(길이) + 체크섬(2) + 테일(0xD8)
+ * USB 패킷 단위로 나뉘어 들어오는 바이트를 재사용 가능한 링 버퍼에 쌓아두고,
+ * 완성된 프레임이 생길 때마다 하나씩 꺼내준다.
+ */
+public class QsimFrameDecoder {
+    private static final String TAG = "QsimFrameDecoder";
+
+    public static final byte HEADER = (byte)0xD4;
+    public static final byte TRAILER = (byte)0xD8;
+
+    // 헤더(1) + 명령(1) + 파라미터(1) + 길이(2)
+    public static final int HEADER_SIZE = 5;
+    // 체크섬(2) + 테일(1)
+    public static final int TRAILER_SIZE = 3;
+    // 데이터 영역 최대 길이 (CryptoModule.MAX_DATA_SIZE 보다 여유있게)
+    public static final int MAX_PAYLOAD_SIZE = 2048;
+
+    // 링 버퍼 크기 (2의 거듭제곱, 최대 프레임 두 개 이상 보관 가능)
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+
+    private final byte[] ring = new byte[CAPACITY];
+    private int head = 0;   // 읽기 위치
+    private int size = 0;   // 쌓여있는 바이트 수
+
+    /**
+     * 수신 데이터를 링 버퍼에 추가
+     * @return 버퍼가 넘쳐 오래된 데이터를 버렸으면 false
+     */
+    public boolean feed(byte[] data, int offset, int length) {
+        boolean overflow = false;
+        if (length > CAPACITY - size) {
+            // 넘치는 만큼 오래된 바이트를 버림
+            int drop = Math.min(size, length - (CAPACITY - size));
+            skip(drop);
+            overflow = true;
+            if (length > CAPACITY) {
+                offset += length - CAPACITY;
+                length = CAPACITY;
+            }
+            Log.w(TAG, "링 버퍼 초과: " + drop + "바이트 버림");
+        }
+
+        int tail = (head + size) & MASK;
+        int first = Math.min(length, CAPACITY - tail);
+        System.arraycopy(data, offset, ring, tail, first);
+        if (first < length) {
+            System.arraycopy(data, offset + first, ring, 0, length - first);
+        }
+        size += length;
+        return !overflow;
+    }
+
+    /**
+     * 완성된 프레임 하나를 꺼냄
+     * 헤더가 아닌 바이트나 깨진 프레임은 건너뛰고 다음 헤더에서 다시 동기화한다.
+     * @return 완성된 프레임, 아직 다 안 들어왔으면 null
+     */
+    public byte[] nextFrame() {
+        while (size > 0) {
+            // 헤더 위치까지 건너뛰기
+            if (peek(0) != HEADER) {
+                skip(1);
+                continue;
+            }
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+
+            int payloadLength = ((peek(3) & 0xFF) << 8) | (peek(4) & 0xFF);
+            if (payloadLength > MAX_PAYLOAD_SIZE) {
+                // 길이 필드가 말이 안되면 잘못 잡은 헤더로 보고 다음 바이트부터 재동기화
+                Log.w(TAG, "잘못된 길이 필드: " + payloadLength);
+                skip(1);
+                continue;
+            }
+
+            int frameLength = HEADER_SIZE + payloadLength + TRAILER_SIZE;
+            if (size < frameLength) {
+                return null;
+            }
+
+            if (peek(frameLength - 1) != TRAILER) {
+                Log.w(TAG, "테일 불일치, 재동기화");
+                skip(1);
+                continue;
+            }
+
+            // 소유권은 호출한 쪽으로 넘어감
+            byte[] frame = QsimBufferPool.shared().acquire(frameLength);
+            copyOut(frame, frameLength);
+            return frame;
+        }
+        return null;
+    }
+
+    /**
+     * 쌓여있는 데이터 모두 버리기
+     */
+    public void reset() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * 링 버퍼에 남아있는 바이트 수
+     */
+    public int available() {
+        return size;
+    }
+
+    private byte peek(int index) {
+        return ring[(head + index) & MASK];
+    }
+
+    private void skip(int count) {
+        head = (head + count) & MASK;
+        size -= count;
+    }
+
+    private void copyOut(byte[] dest, int length) {
+        int first = Math.min(length, CAPACITY - head);
+        System.arraycopy(ring, head, dest, 0, first);
+        if (first < length) {
+            System.arraycopy(ring, 0, dest, first, length - first);
+        }
+        skip(length);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.tcp_ip_client;
+
+import java.nio.ByteBuffer;
+
+/**
+ * QSIM 응답 프레임 뷰
+ *
+ * 수신된 프레임 배열을 복사하지 않고 필드 위치만 읽는다.
+ * [0]=0xD4, [1]=명령, [2]=파라미터, [3..4]=페이로드 길이, 페이로드, CRC 2바이트(하위 먼저), 0xD8
+ * 프레임 하나에 뷰 하나를 만들며, 뷰가 가리키는 프레임은 바뀌지 않는다.
+ */
+public class QsimResponse {
+    private static final int HEADER_SIZE = QsimFrameDecoder.HEADER_SIZE;
+    private static final int TRAILER_SIZE = QsimFrameDecoder.TRAILER_SIZE;
+
+    protected final byte[] frame;
+
+    /**
+     * @throws IllegalStateException 프레임이 없거나 길이 필드와 크기가 맞지 않을 때
+     */
+    public QsimResponse(byte[] frame) {
+        if (frame == null) {
+            throw new IllegalStateException("응답 없음");
+        }
+        if (frame.length < HEADER_SIZE + TRAILER_SIZE
+                || frame.length < HEADER_SIZE + TRAILER_SIZE + (((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF))) {
+            throw new IllegalStateException("응답 길이 오류: " + frame.length);
+        }
+        this.frame = frame;
+    }
+
+    /**
+     * 응답 프레임 뷰 생성 후 명령 표와 맞는지 확인
+     * @throws IllegalStateException 프레임 오류, 명령 코드나 페이로드 크기가 명령 표와 다를 때
+     */
+    public static QsimResponse of(QsimCommand command, byte[] frame) {
+        return new QsimResponse(frame).expect(command);
+    }
+
+    /**
+     * 응답 명령 코드와 (정해져 있으면) 페이로드 크기를 명령 표와 비교
+     * @throws IllegalStateException 다를 때
+     */
+    protected QsimResponse expect(QsimCommand command) {
+        if (command() != (command.responseCode() & 0xFF)) {
+            throw new IllegalStateException(command.name() + " 응답 명령 코드 불일치: " + command());
+        }
+        int size = command.responsePayloadSize();
+        if (size != QsimCommand.VARIABLE && payloadLength() != size) {
+            throw new IllegalStateException(command.name() + " 응답 길이 오류 (필요: " + size + ", 실제: " + payloadLength() + ")");
+        }
+        return this;
+    }
+
+    /**
+     * 응답 명령 코드 (요청 명령 | 0x80)
+     */
+    public int command() {
+        return frame[1] & 0xFF;
+    }
+
+    /**
+     * 파라미터 바이트
+     */
+    public int param() {
+        return frame[2] & 0xFF;
+    }
+
+    public int payloadLength() {
+        return ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF);
+    }
+
+    /**
+     * 페이로드 index 번째 바이트
+     */
+    public byte payloadByte(int index) {
+        return frame[HEADER_SIZE + index];
+    }
+
+    /**
+     * 페이로드 읽기 전용 슬라이스 (프레임 배열을 그대로 가리킴)
+     */
+    public ByteBuffer payload() {
+        return ByteBuffer.wrap(frame, HEADER_SIZE, payloadLength()).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * 페이로드를 dst 에 복사
+     */
+    public void copyPayload(byte[] dst, int offset) {
+        System.arraycopy(frame, HEADER_SIZE, dst, offset, payloadLength());
+    }
+
+    /**
+     * 페이로드 복사본
+     */
+    public byte[] toPayloadArray() {
+        byte[] copy = new byte[payloadLength()];
+        copyPayload(copy, 0);
+        return copy;
+    }
+
+    /**
+     * 프레임에 들어있는 CRC 값
+     */
+    public int crc() {
+        int index = HEADER_SIZE + payloadLength();
+        return (frame[index] & 0xFF) | (frame[index + 1] & 0xFF) << 8;
+    }
+
+    public boolean isCrcValid() {
+        return QsimCrc.verify(frame);
+    }
+
+    /**
+     * 프레임 전체 크기
+     */
+    public int frameLength() {
+        return HEADER_SIZE + payloadLength() + TRAILER_SIZE;
+    }
+}
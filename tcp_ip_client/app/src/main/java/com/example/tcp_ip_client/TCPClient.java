@@ -4,56 +4,56 @@ import static android.content.ContentValues.TAG;
 
 import android.util.Log;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
 
-public class TCPClient {
-    private String serverIP;
-    private int serverPort;
+/**
+ * 블로킹 소켓 TCP 클라이언트
+ * 연결마다 수신 스레드와 쓰기 스레드를 하나씩 둔다. 프로토콜 처리는 AuthClient 가 한다.
+ */
+public class TCPClient extends AuthClient {
     private Socket socket;
-    private BufferedReader in;
-    private PrintWriter out;
-    private boolean isConnected = false;
-    private OnMessageReceviedListener messageListener;
-    
-    // 서버로부터 받은 NonceS 값을 저장
-    private byte[] serverNonce = null;
-    // 서버로 받은 HMAC 값을 저장
-    private byte[] serverHmac = null;
-    // 클라이언트에서 생성한 NonceC 값을 저장
-    private byte[] clientNonce = null;
+    private InputStream in;
+    private BufferedOutputStream out;
+    private volatile boolean isConnected = false;
 
+    // 연결 종료 시 쓰기 스레드가 남은 메시지를 보내기를 기다리는 최대 시간
+    private static final int CLOSE_WAIT = 500;
+    // 쓰기 스레드 종료 표시 (== 로 비교)
+    private static final byte[] CLOSE = new byte[0];
 
-    // 메시지 수신 리스너 인터페이스
-    public interface OnMessageReceviedListener {
-        void onMessageReceived(String message);
-    }
+    // 인코딩된 전송 대기 메시지, 쓰기 스레드가 쌓인 메시지를 모아 한 번에 flush
+    private final LinkedBlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>();
+    private Thread writerThread;
+    private volatile boolean writeFailed = false;
 
     public TCPClient(String serverIP, int serverPort, OnMessageReceviedListener listener) {
-        this.serverIP = serverIP;
-        this.serverPort = serverPort;
-        this.messageListener = listener;
+        super(serverIP, serverPort, listener);
     }
 
     // 서버에 연결
+    @Override
     public boolean connect() {
         try {
             Log.d(TAG, "서버 연결 시도: " + serverIP + ":" + serverPort);
             socket = new Socket(serverIP, serverPort);
             Log.d(TAG, "소켓 연결 성공");
-            
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+            in = socket.getInputStream();
             Log.d(TAG, "입력 스트림 생성 성공");
-            
-            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true);
+
+            out = new BufferedOutputStream(socket.getOutputStream());
             Log.d(TAG, "출력 스트림 생성 성공");
-            
+
+            resetSession();
             isConnected = true;
+            startWriter();
             Log.d(TAG, "서버 연결 완료");
             return true;
         } catch (IOException e) {
@@ -63,52 +63,73 @@ public class TCPClient {
         }
     }
 
-    // 메시지 전송
-    public void sendMessage(String message) {
-        if (out != null && !out.checkError()) {
-            Log.d(TAG, "전송 시작: " + message);
-            out.println(message);
-            out.flush(); // 명시적으로 flush 호출
-            
-            try {
-                // 잠시 대기하여 서버가 응답할 시간을 줌
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "대기 중 인터럽트 발생", e);
-            }
-            
-            Log.d(TAG, "전송 완료 및 flush 완료");
+    @Override
+    protected void enqueue(byte[] encoded) {
+        if (isConnected && out != null && !writeFailed) {
+            sendQueue.add(encoded);
         } else {
             Log.e(TAG, "메시지 전송 실패: 출력 스트림 오류");
         }
     }
-    
-    // NonceC 전송 (RandomData)
-    public void sendNonceC(byte[] nonceC) {
-        if (nonceC == null || nonceC.length == 0) {
-            Log.e(TAG, "NonceC 전송 실패: 데이터가 null 또는 빈 배열");
+
+    // 쓰기 스레드 시작
+    private void startWriter() {
+        writeFailed = false;
+        sendQueue.clear();
+        final BufferedOutputStream writer = out;
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                List<byte[]> batch = new ArrayList<>();
+                try {
+                    boolean closing = false;
+                    while (!closing) {
+                        // 메시지가 올 때까지 대기 후, 그동안 쌓인 메시지를 함께 보냄
+                        batch.add(sendQueue.take());
+                        sendQueue.drainTo(batch);
+                        for (byte[] message : batch) {
+                            if (message == CLOSE) {
+                                closing = true;
+                                break;
+                            }
+                            writer.write(message);
+                        }
+                        writer.flush();
+                        TraceLog.event(TraceLog.INFO, TAG, "전송 flush", batch.size());
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    // 연결 종료
+                } catch (IOException e) {
+                    writeFailed = true;
+                    if (isConnected) {
+                        Log.e(TAG, "메시지 전송 오류: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }, "tcp-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // 쓰기 스레드 종료 (큐에 남은 메시지는 CLOSE_WAIT 까지 보내 봄)
+    private void stopWriter() {
+        Thread writer = writerThread;
+        writerThread = null;
+        if (writer == null) {
             return;
         }
-        
-        // NonceC를 16진수 문자열로 변환
-        StringBuilder sb = new StringBuilder();
-        for (byte b : nonceC) {
-            sb.append(String.format("%02X", b));
+        sendQueue.add(CLOSE);
+        try {
+            writer.join(CLOSE_WAIT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        String nonceHex = sb.toString();
-        
-        // 메시지 형식 구성
-        String message = "NonceC : " + nonceHex;
-        
-        // 메시지 전송
-        Log.d(TAG, "NonceC 전송: " + message);
-        sendMessage(message);
-        
-        // 클라이언트 NonceC 저장
-        this.clientNonce = nonceC;
+        writer.interrupt();
     }
 
     // 메시지 수신 스레드 시작
+    @Override
     public void startListening() {
         if (!isConnected || socket == null) {
             Log.e(TAG, "수신 시작 실패: 연결되지 않음");
@@ -121,37 +142,41 @@ public class TCPClient {
             public void run() {
                 try {
                     Log.d(TAG, "수신 대기 중...");
-                    
-                    // 소켓 타임아웃 설정 (10초로 증가)
-                    socket.setSoTimeout(10000);
-                    
-                    BufferedReader localReader = new BufferedReader(
-                        new InputStreamReader(socket.getInputStream()));
-                    
-                    String message;
+
+                    // 읽기는 데이터가 오거나 disconnect() 가 소켓을 닫을 때까지 블록됨 (타임아웃으로 깨어나지 않음)
+                    // 소켓에서 읽은 바이트를 그대로 두고 줄/레코드 단위로 잘라 처리
+                    InputStream input = socket.getInputStream();
+                    byte[] buffer = new byte[RECEIVE_BUFFER_SIZE];
+                    int start = 0;
+                    int end = 0;
                     while (isConnected && socket != null && !socket.isClosed()) {
                         try {
-                            message = localReader.readLine();
-                            
-                            if (message == null) {
-                                Log.d(TAG, "수신된 메시지가 null입니다. 연결이 종료되었을 수 있습니다.");
-                                continue;
+                            if (end == buffer.length) {
+                                if (start > 0) {
+                                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                                    end -= start;
+                                    start = 0;
+                                } else if (buffer.length < MAX_RECEIVE_SIZE) {
+                                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_RECEIVE_SIZE));
+                                } else {
+                                    throw new IOException("수신 메시지 최대 길이 초과");
+                                }
                             }
-                            
-                            Log.d(TAG, "수신: '" + message + "'");
-                            
-                            // SUCCESS 메시지 특별 처리
-                            if (message.contains("SUCCESS")) {
-                                Log.d(TAG, "SUCCESS 메시지 감지됨! 즉시 처리합니다.");
+
+                            int n = input.read(buffer, end, buffer.length - end);
+                            if (n < 0) {
+                                Log.d(TAG, "서버가 연결을 종료했습니다.");
+                                break;
                             }
-                            
-                            // 메시지 리스너에 전달
-                            if (messageListener != null) {
-                                messageListener.onMessageReceived(message);
+                            end += n;
+
+                            start = dispatch(buffer, start, end);
+                            if (start == end) {
+                                start = 0;
+                                end = 0;
                             }
                         } catch (java.net.SocketTimeoutException e) {
-                            // 타임아웃 발생 - 정상적인 상황, 다시 시도
-                            Log.d(TAG, "수신 타임아웃, 다시 시도합니다.");
+                            // setTimeout() 으로 읽기 타임아웃을 건 경우, 다시 대기
                             continue;
                         } catch (IOException e) {
                             if (isConnected) {
@@ -165,6 +190,7 @@ public class TCPClient {
                 } finally {
                     Log.d(TAG, "수신 스레드 종료");
                     isConnected = false;
+                    failPendingRequests(new IOException("연결 종료됨"));
                 }
             }
         });
@@ -172,55 +198,12 @@ public class TCPClient {
         receiveThread.start();
     }
 
-    // 메시지 전송 후 응답 대기 메서드 추가
-    public String sendAndWaitForResponse(String message, int timeoutMs) {
-        if (!isConnected || socket == null) {
-            Log.e(TAG, "전송 실패: 연결되지 않음");
-            return null;
-        }
-        
-        final String[] response = {null};
-        final boolean[] responseReceived = {false};
-        
-        // 임시 메시지 리스너 설정
-        OnMessageReceviedListener originalListener = messageListener;
-        messageListener = new OnMessageReceviedListener() {
-            @Override
-            public void onMessageReceived(String msg) {
-                Log.d(TAG, "응답 수신: " + msg);
-                response[0] = msg;
-                responseReceived[0] = true;
-                
-                // 원래 리스너도 호출
-                if (originalListener != null) {
-                    originalListener.onMessageReceived(msg);
-                }
-            }
-        };
-        
-        // 메시지 전송
-        sendMessage(message);
-        
-        // 응답 대기
-        long startTime = System.currentTimeMillis();
-        while (!responseReceived[0] && System.currentTimeMillis() - startTime < timeoutMs) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "응답 대기 중 인터럽트 발생", e);
-                break;
-            }
-        }
-        
-        // 원래 리스너 복원
-        messageListener = originalListener;
-        
-        return response[0];
-    }
-
     // 연결 종료
+    @Override
     public void disconnect() {
+        stopWriter();
         isConnected = false;
+        failPendingRequests(new IOException("연결 종료됨"));
         if (socket != null) {
             try {
                 socket.close();
@@ -238,30 +221,20 @@ public class TCPClient {
         }
 
         if (out != null) {
-            out.close();
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     // 연결 상태 확인
+    @Override
     public boolean isConnected() {
         return isConnected && socket != null && socket.isConnected() && !socket.isClosed();
     }
-    
-    // 저장된 서버 NonceS 값 반환
-    public byte[] getServerNonce() {
-        return serverNonce;
-    }
 
-    // 저장된 서버 HMAC 값 반환
-    public byte[] getServerHmac() {
-        return serverHmac;
-    }
-    
-    // 저장된 클라이언트 NonceC 값 반환
-    public byte[] getClientNonce() {
-        return this.clientNonce;
-    }
-    
     // 16진수 문자열을 바이트 배열로 변환
     private byte[] hexStringToBytes(String hexString) {
         if (hexString == null || hexString.length() == 0) {
@@ -279,7 +252,7 @@ public class TCPClient {
 
         return bytes;
     }
-    
+
     // 타임아웃 설정 메서드 추가
     public void setTimeout(int timeout) {
         try {
@@ -290,20 +263,4 @@ public class TCPClient {
             Log.e(TAG, "타임아웃 설정 오류: " + e.getMessage());
         }
     }
-
-    // 메시지 리스너 getter
-    public OnMessageReceviedListener getMessageListener() {
-        return messageListener;
-    }
-
-    // 메시지 리스너 setter
-    public void setMessageListener(OnMessageReceviedListener listener) {
-        this.messageListener = listener;
-    }
-
-    // 클라이언트 NonceC 설정 메서드
-    public void setClientNonce(byte[] nonce) {
-        this.clientNonce = nonce;
-        Log.d(TAG, "클라이언트 NonceC 설정 완료: 길이=" + (nonce != null ? nonce.length : 0));
-    }
 }
@@ -0,0 +1,143 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TCP 세션 공용 이벤트 루프
+ *
+ * Selector 하나와 스레드 하나로 여러 NioTCPClient 세션의 연결/읽기/쓰기를 처리한다.
+ * 세션 수와 관계없이 스레드는 하나이며, 이벤트가 없으면 select() 에서 잠든다 (타임아웃 폴링 없음).
+ * 채널 등록, interestOps 변경, 닫기는 모두 이 스레드에서만 하고,
+ * 다른 스레드는 execute() 로 작업을 넘긴다.
+ */
+public class TcpEventLoop {
+    private static final String TAG = "TcpEventLoop";
+
+    private static TcpEventLoop shared;
+
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public TcpEventLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * 앱 전체가 함께 쓰는 이벤트 루프 (처음 호출될 때 시작)
+     */
+    public static synchronized TcpEventLoop shared() throws IOException {
+        if (shared == null || !shared.running) {
+            shared = new TcpEventLoop();
+            shared.start();
+        }
+        return shared;
+    }
+
+    /**
+     * 이벤트 루프 스레드 시작
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, "tcp-event-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 이벤트 루프 종료 (등록된 세션은 모두 닫힘)
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * 이벤트 루프 스레드에서 실행할 작업 추가
+     * 루프 스레드에서 넣은 작업은 select() 를 깨우지 않고, 처리 중인 이벤트가 끝난 뒤 바로 실행된다.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 현재 스레드가 이벤트 루프 스레드인지 확인
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    private void runLoop() {
+        Log.d(TAG, "이벤트 루프 시작");
+        try {
+            while (running) {
+                selector.select();
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioTCPClient session = (NioTCPClient) key.attachment();
+                    if (!key.isValid()) {
+                        session.close(null);
+                        continue;
+                    }
+                    try {
+                        session.handle(key);
+                    } catch (IOException | RuntimeException e) {
+                        session.close(e);
+                    }
+                }
+                // 이벤트 처리 중 루프 스레드가 넣은 작업 (wakeup 없이 넣었으므로 select() 전에 실행)
+                runTasks();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            Log.e(TAG, "이벤트 루프 오류: " + e.getMessage(), e);
+        } finally {
+            running = false;
+            runTasks();
+            for (SelectionKey key : selector.keys()) {
+                ((NioTCPClient) key.attachment()).close(null);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Selector 닫기 오류", e);
+            }
+            Log.d(TAG, "이벤트 루프 종료");
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "작업 실행 오류: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.tcp_ip_client;
+
+import android.util.Log;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 프레임/이벤트 추적 기록
+ *
+ * 레벨을 먼저 확인하고, 통과한 이벤트만 미리 할당한 링 버퍼 슬롯에 복사해 둔다.
+ * 기록할 때는 문자열을 만들지 않으며 16진수 변환은 dump() 로 볼 때만 한다.
+ * 라벨은 상수 문자열을 넘겨야 기록 비용이 배열 복사 하나로 끝난다.
+ *
+ * 링이 가득 차면 가장 오래된 이벤트부터 덮어쓴다. 프레임은 앞 MAX_FRAME_BYTES 바이트만 보관한다.
+ */
+public final class TraceLog {
+    private static final String TAG = "TraceLog";
+
+    public static final int OFF = 0;
+    // 링 버퍼에만 기록
+    public static final int INFO = 1;
+    // 링 버퍼 기록 + 화면/logcat 16진수 출력
+    public static final int DEBUG = 2;
+
+    // 보관할 이벤트 수 (2의 거듭제곱)
+    private static final int CAPACITY = 256;
+    // 이벤트 하나에 보관할 최대 프레임 바이트
+    static final int MAX_FRAME_BYTES = 64;
+
+    private static volatile int level = INFO;
+
+    private static final long[] times = new long[CAPACITY];
+    private static final String[] tags = new String[CAPACITY];
+    private static final String[] labels = new String[CAPACITY];
+    private static final long[] values = new long[CAPACITY];
+    // 원래 프레임 길이, 값 이벤트는 -1
+    private static final int[] lengths = new int[CAPACITY];
+    private static final byte[][] data = new byte[CAPACITY][MAX_FRAME_BYTES];
+    // 지금까지 기록된 이벤트 수
+    private static long written = 0;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private TraceLog() {
+    }
+
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * 해당 레벨 기록 여부 (문자열을 만들기 전에 확인)
+     */
+    public static boolean isEnabled(int eventLevel) {
+        return eventLevel <= level;
+    }
+
+    /**
+     * 값 하나를 가진 이벤트 기록
+     */
+    public static void event(int eventLevel, String tag, String label, long value) {
+        if (!isEnabled(eventLevel)) {
+            return;
+        }
+        synchronized (TraceLog.class) {
+            int index = nextIndex(tag, label);
+            values[index] = value;
+            lengths[index] = -1;
+        }
+    }
+
+    /**
+     * 프레임 기록
+     */
+    public static void frame(int eventLevel, String tag, String label, byte[] frame) {
+        frame(eventLevel, tag, label, frame, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 프레임 앞 limit 바이트만 기록 (키/PSK 가 들어 있는 프레임은 헤더까지만 넘김)
+     */
+    public static void frame(int eventLevel, String tag, String label, byte[] frame, int limit) {
+        if (!isEnabled(eventLevel)) {
+            return;
+        }
+        if (frame == null) {
+            event(eventLevel, tag, label, -1);
+            return;
+        }
+        int count = Math.min(Math.min(limit, frame.length), MAX_FRAME_BYTES);
+        synchronized (TraceLog.class) {
+            int index = nextIndex(tag, label);
+            System.arraycopy(frame, 0, data[index], 0, count);
+            values[index] = count;
+            lengths[index] = frame.length;
+        }
+    }
+
+    private static int nextIndex(String tag, String label) {
+        int index = (int) (written++ & (CAPACITY - 1));
+        times[index] = System.currentTimeMillis();
+        tags[index] = tag;
+        labels[index] = label;
+        return index;
+    }
+
+    /**
+     * 보관 중인 이벤트를 오래된 순서로 문자열로 변환
+     */
+    public static String dump() {
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        StringBuilder sb = new StringBuilder();
+        synchronized (TraceLog.class) {
+            long start = Math.max(0, written - CAPACITY);
+            for (long i = start; i < written; i++) {
+                int index = (int) (i & (CAPACITY - 1));
+                sb.append(format.format(new Date(times[index])))
+                        .append(' ').append(tags[index])
+                        .append(' ').append(labels[index]);
+                if (lengths[index] < 0) {
+                    sb.append(" = ").append(values[index]);
+                } else {
+                    sb.append(" [").append(lengths[index]).append("] = ");
+                    appendHex(sb, data[index], 0, (int) values[index]);
+                    if (values[index] < lengths[index]) {
+                        sb.append("..");
+                    }
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 보관 중인 이벤트를 logcat 으로 출력
+     */
+    public static void dumpToLog() {
+        for (String line : dump().split("\n")) {
+            if (!line.isEmpty()) {
+                Log.d(TAG, line);
+            }
+        }
+    }
+
+    /**
+     * 기록 비우기
+     */
+    public static void clear() {
+        synchronized (TraceLog.class) {
+            written = 0;
+            for (byte[] slot : data) {
+                Arrays.fill(slot, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * 바이트 배열을 16진수 문자열로 변환 (구분자 없음)
+     */
+    public static String hex(byte[] bytes) {
+        if (bytes == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        appendHex(sb, bytes, 0, bytes.length);
+        return sb.toString();
+    }
+
+    private static void appendHex(StringBuilder sb, byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            sb.append(HEX[(bytes[i] >> 4) & 0x0F]).append(HEX[bytes[i] & 0x0F]);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.tcp_ip_client;
+
+import java.nio.ByteBuffer;
+
+/**
+ * VERSION (0x81) 응답 뷰
+ */
+public class VersionResponse extends QsimResponse {
+
+    public VersionResponse(byte[] frame) {
+        super(frame);
+        expect(QsimCommand.VERSION);
+        if (payloadLength() <= 0) {
+            throw new IllegalStateException("Invalid version response: 버전 길이가 0 이하입니다");
+        }
+    }
+
+    /**
+     * 버전 정보 슬라이스
+     */
+    public ByteBuffer version() {
+        return payload();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthClient 수신 분배/모드 협상 테스트
+ * 소켓 없이 dispatch() 에 수신 바이트를 직접 넣고, 전송은 enqueue() 로 받은 바이트를 모아 확인한다.
+ */
+public class AuthClientTest {
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final List<String> records = new CopyOnWriteArrayList<>();
+    private FakeClient client;
+
+    @Before
+    public void setUp() {
+        client = new FakeClient(messages::add);
+        client.setRecordListener((type, buffer, offset, length) ->
+                records.add(type + ":" + TraceLog.hex(Arrays.copyOfRange(buffer, offset, offset + length))));
+    }
+
+    @Test
+    public void switchesToRecordsInTheMiddleOfABuffer() throws Exception {
+        CompletableFuture<Boolean> negotiation = client.negotiateBinaryModeAsync(5000);
+        // 협상 중에 보낸 NonceC 는 결과가 나올 때까지 미뤄짐
+        client.sendNonceC(new byte[] {1, 2});
+        assertEquals(1, client.sent.size());
+
+        byte[] buffer = concat(
+                line(AuthRecord.NEGOTIATE_OK),
+                line("hello"),
+                line(AuthRecord.NEGOTIATE_CONFIRM),
+                AuthRecord.encode(AuthRecord.NONCE_S, new byte[] {(byte) 0xAA, (byte) 0xBB}),
+                AuthRecord.text("hi"));
+        assertEquals(buffer.length, client.dispatch(buffer, 0, buffer.length));
+
+        assertTrue(negotiation.get(1, TimeUnit.SECONDS));
+        assertTrue(client.isBinaryMode());
+        assertEquals(Arrays.asList("hello", "hi"), messages);
+        assertEquals(Arrays.asList(AuthRecord.NONCE_S + ":AABB"), records);
+        assertArrayEquals(new byte[] {(byte) 0xAA, (byte) 0xBB}, client.getServerNonce());
+
+        // 요청, 확인 줄, 미뤄 둔 NonceC 레코드 순서로 전송
+        assertEquals(3, client.sent.size());
+        assertArrayEquals(line(AuthRecord.NEGOTIATE), client.sent.get(0));
+        assertArrayEquals(line(AuthRecord.NEGOTIATE_CONFIRM), client.sent.get(1));
+        assertArrayEquals(AuthRecord.encode(AuthRecord.NONCE_C, new byte[] {1, 2}), client.sent.get(2));
+    }
+
+    @Test
+    public void waitsForTheRestOfASplitRecord() throws Exception {
+        switchToRecords();
+        byte[] record = AuthRecord.encode(AuthRecord.HMAC, new byte[] {1, 2, 3, 4});
+        byte[] buffer = new byte[64];
+
+        // 헤더 일부만 도착
+        System.arraycopy(record, 0, buffer, 0, 2);
+        assertEquals(0, client.dispatch(buffer, 0, 2));
+        // 헤더와 값 일부
+        System.arraycopy(record, 2, buffer, 2, 3);
+        assertEquals(0, client.dispatch(buffer, 0, 5));
+        assertTrue(records.isEmpty());
+
+        // 나머지와 다음 레코드 앞부분
+        System.arraycopy(record, 5, buffer, 5, record.length - 5);
+        buffer[record.length] = (byte) AuthRecord.TEXT;
+        assertEquals(record.length, client.dispatch(buffer, 0, record.length + 1));
+        assertEquals(Arrays.asList(AuthRecord.HMAC + ":01020304"), records);
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, client.getServerHmac());
+    }
+
+    @Test
+    public void lateAcceptAfterTimeoutKeepsTextMode() throws Exception {
+        CompletableFuture<Boolean> negotiation = client.negotiateBinaryModeAsync(50);
+        client.sendMessage("queued");
+        assertFalse(negotiation.get(1, TimeUnit.SECONDS));
+
+        // 타임아웃 뒤 미뤄 둔 메시지는 텍스트 줄로 전송됨
+        assertEquals(2, client.sent.size());
+        assertArrayEquals(line("queued"), client.sent.get(1));
+
+        // 늦은 수락에는 확인 줄을 보내지 않으므로 서버도 텍스트로 계속 보냄
+        byte[] buffer = concat(line(AuthRecord.NEGOTIATE_OK), line("next"));
+        assertEquals(buffer.length, client.dispatch(buffer, 0, buffer.length));
+        assertFalse(client.isBinaryMode());
+        assertEquals(Arrays.asList("next"), messages);
+        assertEquals(2, client.sent.size());
+
+        client.sendMessage("after");
+        assertArrayEquals(line("after"), client.sent.get(2));
+    }
+
+    @Test
+    public void rejectionSettlesTextModeAndOtherLinesDoNot() throws Exception {
+        CompletableFuture<Boolean> negotiation = client.negotiateBinaryModeAsync(5000);
+        byte[] greeting = line("welcome");
+        client.dispatch(greeting, 0, greeting.length);
+        assertFalse(negotiation.isDone());
+
+        byte[] rejection = line(AuthRecord.NEGOTIATE + " NO");
+        client.dispatch(rejection, 0, rejection.length);
+        assertFalse(negotiation.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("welcome"), messages);
+    }
+
+    private void switchToRecords() throws Exception {
+        CompletableFuture<Boolean> negotiation = client.negotiateBinaryModeAsync(5000);
+        byte[] buffer = concat(line(AuthRecord.NEGOTIATE_OK), line(AuthRecord.NEGOTIATE_CONFIRM));
+        client.dispatch(buffer, 0, buffer.length);
+        assertTrue(negotiation.get(1, TimeUnit.SECONDS));
+    }
+
+    private static byte[] line(String text) {
+        return (text + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[]... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 항상 연결된 것으로 보고 전송 바이트를 모으는 클라이언트
+     */
+    private static class FakeClient extends AuthClient {
+        final List<byte[]> sent = new CopyOnWriteArrayList<>();
+
+        FakeClient(OnMessageReceviedListener listener) {
+            super("127.0.0.1", 0, listener);
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void startListening() {
+        }
+
+        @Override
+        public void disconnect() {
+            failPendingRequests(new IOException("연결 종료됨"));
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        protected void enqueue(byte[] encoded) {
+            sent.add(encoded);
+        }
+    }
+}
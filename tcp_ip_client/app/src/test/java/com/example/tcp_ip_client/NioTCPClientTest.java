@@ -0,0 +1,99 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NioTCPClient 루프백 테스트
+ * 같은 JVM 의 ServerSocket 을 서버로 쓰고, 서버가 받은 줄/레코드를 큐에 모아 확인한다.
+ */
+public class NioTCPClientTest {
+    private TcpEventLoop loop;
+    private ServerSocket server;
+    private NioTCPClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        loop = new TcpEventLoop();
+        loop.start();
+        server = new ServerSocket(0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (client != null) {
+            client.disconnect();
+        }
+        server.close();
+        loop.stop();
+    }
+
+    @Test
+    public void messagesSentDuringNegotiationReachBinaryServer() throws Exception {
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        Thread serverThread = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+                received.add(readLine(in));
+                // 클라이언트가 NonceC 를 보낸 뒤에 수락
+                Thread.sleep(100);
+                out.write((AuthRecord.NEGOTIATE_OK + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                received.add(readLine(in));
+                out.write((AuthRecord.NEGOTIATE_CONFIRM + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                DataInputStream records = new DataInputStream(in);
+                for (int i = 0; i < 2; i++) {
+                    int type = records.read();
+                    byte[] value = new byte[records.readUnsignedShort()];
+                    records.readFully(value);
+                    received.add(type + ":" + value.length);
+                }
+            } catch (IOException | InterruptedException e) {
+                received.add("error " + e.getMessage());
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        client = new NioTCPClient(loop, "127.0.0.1", server.getLocalPort(), null);
+        assertTrue(client.connect());
+        client.startListening();
+
+        // 협상 응답 전에 보낸 NonceC 는 미뤄졌다가 수락 응답을 받은 루프 스레드에서 전송됨
+        client.negotiateBinaryModeAsync(2000);
+        client.sendNonceC(new byte[16]);
+        assertEquals(AuthRecord.NEGOTIATE, received.poll(2, TimeUnit.SECONDS));
+        assertEquals(AuthRecord.NEGOTIATE_CONFIRM, received.poll(2, TimeUnit.SECONDS));
+        assertEquals(AuthRecord.NONCE_C + ":16", received.poll(2, TimeUnit.SECONDS));
+
+        // 루프 스레드가 예약한 flush 가 실행되지 않으면 이후 전송도 막힘
+        client.sendMessage("after");
+        assertEquals(AuthRecord.TEXT + ":5", received.poll(2, TimeUnit.SECONDS));
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hoho.android.usbserial.driver.UsbSerialPort;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * QsimCommandExecutor 응답 매칭 테스트
+ * 포트 쓰기는 횟수만 세고, 응답 프레임은 onReceived 로 직접 넣는다.
+ */
+public class QsimCommandExecutorTest {
+    private final AtomicInteger writes = new AtomicInteger();
+    private QsimCommandExecutor executor;
+
+    @Before
+    public void setUp() {
+        UsbSerialPort port = (UsbSerialPort) Proxy.newProxyInstance(
+                UsbSerialPort.class.getClassLoader(),
+                new Class<?>[] {UsbSerialPort.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("write")) {
+                        writes.incrementAndGet();
+                    }
+                    return null;
+                });
+        executor = new QsimCommandExecutor(port);
+        executor.startWithoutReader();
+    }
+
+    @After
+    public void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    public void lateReplyIsNotGivenToNextRequestWithSameCommand() throws Exception {
+        byte[] payloadA = block(0x11);
+        byte[] payloadB = block(0x22);
+
+        CompletableFuture<byte[]> a = executor.submit(QsimCommand.LEA_DATA.encode(payloadA, 0, payloadA.length));
+        CompletableFuture<byte[]> b = executor.submit(QsimCommand.LEA_DATA.encode(payloadB, 0, payloadB.length));
+
+        // A 가 타임아웃된 뒤에야 B 가 전송됨
+        try {
+            a.get(5, TimeUnit.SECONDS);
+            fail("A 는 타임아웃되어야 함");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        awaitWrites(2);
+
+        // A 의 늦은 응답, B 의 응답 순서로 도착
+        byte[] replyB = response(payloadB);
+        executor.onReceived(response(payloadA));
+        executor.onReceived(replyB.clone());
+
+        assertArrayEquals(replyB, b.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void replyCompletesMatchingRequest() throws Exception {
+        byte[] payload = block(0x33);
+        CompletableFuture<byte[]> request = executor.submit(QsimCommand.LEA_DATA.encode(payload, 0, payload.length));
+        awaitWrites(1);
+
+        byte[] reply = response(payload);
+        executor.onReceived(reply.clone());
+
+        assertArrayEquals(reply, request.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void opcodeRecoversWhenTimedOutRequestIsNeverAnswered() throws Exception {
+        byte[] payloadA = block(0x44);
+        byte[] payloadB = block(0x55);
+
+        // 장치가 A 에 끝내 응답하지 않음
+        CompletableFuture<byte[]> a = executor.submit(QsimCommand.LEA_DATA.encode(payloadA, 0, payloadA.length));
+        assertTimedOut(a);
+
+        // 늦은 응답을 기다리는 기한이 지난 뒤 B 의 응답은 B 에 전달되어야 함
+        Thread.sleep(QsimCommandExecutor.TIMEOUT + 100);
+        CompletableFuture<byte[]> b = executor.submit(QsimCommand.LEA_DATA.encode(payloadB, 0, payloadB.length));
+        awaitWrites(2);
+        byte[] replyB = response(payloadB);
+        executor.onReceived(replyB.clone());
+
+        assertArrayEquals(replyB, b.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void opcodeRecoversAfterBackToBackTimeouts() throws Exception {
+        byte[] payloadA = block(0x66);
+        byte[] payloadB = block(0x77);
+        byte[] payloadC = block(0x88);
+
+        // A 는 응답 없음, 바로 이어 보낸 B 의 응답은 A 의 늦은 응답과 구별할 수 없어 버려짐
+        CompletableFuture<byte[]> a = executor.submit(QsimCommand.LEA_DATA.encode(payloadA, 0, payloadA.length));
+        CompletableFuture<byte[]> b = executor.submit(QsimCommand.LEA_DATA.encode(payloadB, 0, payloadB.length));
+        assertTimedOut(a);
+        awaitWrites(2);
+        executor.onReceived(response(payloadB));
+        assertTimedOut(b);
+
+        // B 의 타임아웃은 늦은 응답을 다시 기다리게 하지 않으므로 C 는 바로 성공해야 함
+        CompletableFuture<byte[]> c = executor.submit(QsimCommand.LEA_DATA.encode(payloadC, 0, payloadC.length));
+        awaitWrites(3);
+        byte[] replyC = response(payloadC);
+        executor.onReceived(replyC.clone());
+
+        assertArrayEquals(replyC, c.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void readerErrorFailsQueuedRequestsAndStopsExecutor() throws Exception {
+        byte[] payload = block(0x99);
+        CompletableFuture<byte[]> sent = executor.submit(QsimCommand.LEA_DATA.encode(payload, 0, payload.length));
+        CompletableFuture<byte[]> queued = executor.submit(QsimCommand.LEA_DATA.encode(payload, 0, payload.length));
+        awaitWrites(1);
+
+        executor.onReaderStopped(new IOException("USB detached"));
+
+        assertFailedWithIOException(sent);
+        assertFailedWithIOException(queued);
+        // 읽는 쪽이 없으므로 새 요청은 보내지 않고 바로 실패
+        CompletableFuture<byte[]> later = executor.submit(QsimCommand.LEA_DATA.encode(payload, 0, payload.length));
+        assertFailedWithIOException(later);
+        assertEquals(1, writes.get());
+    }
+
+    private static void assertFailedWithIOException(CompletableFuture<byte[]> request) throws Exception {
+        try {
+            request.get(1, TimeUnit.SECONDS);
+            fail("실패해야 함");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    private static void assertTimedOut(CompletableFuture<byte[]> request) throws InterruptedException {
+        try {
+            request.get(5, TimeUnit.SECONDS);
+            fail("타임아웃되어야 함");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            fail("타임아웃 처리가 되지 않음");
+        }
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writes.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, writes.get());
+    }
+
+    private static byte[] block(int value) {
+        byte[] data = new byte[CryptoModule.LEA_BLOCK_SIZE];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+
+    /**
+     * LEA 데이터 응답 프레임 (명령 0xBA)
+     */
+    private static byte[] response(byte[] payload) {
+        byte[] frame = new byte[QsimFrameDecoder.HEADER_SIZE + payload.length + QsimFrameDecoder.TRAILER_SIZE];
+        frame[0] = QsimFrameDecoder.HEADER;
+        frame[1] = QsimCommand.LEA_DATA.responseCode();
+        frame[2] = 0x2D;
+        frame[3] = (byte) (payload.length >> 8);
+        frame[4] = (byte) payload.length;
+        System.arraycopy(payload, 0, frame, QsimFrameDecoder.HEADER_SIZE, payload.length);
+        QsimCrc.seal(frame);
+        return frame;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * QsimCrc 테스트 (QSIM 로그에 남은 프레임 기준)
+ */
+public class QsimCrcTest {
+    private static final String[] LOGGED_FRAMES = {
+            "D40100000065E0D8",
+            "D43424001000112233445566778899AABBCCDDEEFF23A4D8",
+            "D4B4240000F48FD8",
+            "D4392D0003454342A2BCD8",
+            "D4B92D00006598D8",
+            "D43A2D0010800000000000000000000000000000008890D8",
+            "D4BA2D0010C92ED5DDB2448EC936CA33088D204032CBE4D8",
+    };
+
+    @Test
+    public void verifiesLoggedFrames() {
+        for (String hex : LOGGED_FRAMES) {
+            assertTrue(hex, QsimCrc.verify(CryptoModule.hexStringToBytes(hex)));
+        }
+    }
+
+    @Test
+    public void sealReproducesLoggedFrames() {
+        for (String hex : LOGGED_FRAMES) {
+            byte[] expected = CryptoModule.hexStringToBytes(hex);
+            byte[] frame = expected.clone();
+            // 체크섬과 테일을 지운 뒤 다시 채움
+            frame[frame.length - 3] = 0;
+            frame[frame.length - 2] = 0;
+            frame[frame.length - 1] = 0;
+            QsimCrc.seal(frame);
+            assertArrayEquals(hex, expected, frame);
+        }
+    }
+
+    @Test
+    public void rejectsCorruptedFrame() {
+        byte[] frame = CryptoModule.hexStringToBytes(LOGGED_FRAMES[6]);
+        frame[7] ^= 0x01;
+        assertFalse(QsimCrc.verify(frame));
+    }
+
+    @Test
+    public void rejectsShortFrame() {
+        assertFalse(QsimCrc.verify(null));
+        assertFalse(QsimCrc.verify(CryptoModule.hexStringToBytes("D401E0D8")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * QsimFrameDecoder 테스트 (QSIM 로그에 남은 응답 프레임 기준)
+ */
+public class QsimFrameDecoderTest {
+    private static final byte[] KEY_RESPONSE = CryptoModule.hexStringToBytes("D4B4240000F48FD8");
+    private static final byte[] DATA_RESPONSE = CryptoModule.hexStringToBytes(
+            "D4BA2D0010C92ED5DDB2448EC936CA33088D204032CBE4D8");
+
+    private final QsimFrameDecoder decoder = new QsimFrameDecoder();
+
+    @Test
+    public void assemblesFrameSplitAcrossPackets() {
+        // USB 패킷이 헤더 중간과 데이터 중간에서 잘린 경우
+        feed(DATA_RESPONSE, 0, 3);
+        assertNull(decoder.nextFrame());
+        feed(DATA_RESPONSE, 3, 10);
+        assertNull(decoder.nextFrame());
+        feed(DATA_RESPONSE, 13, DATA_RESPONSE.length - 13);
+
+        assertArrayEquals(DATA_RESPONSE, decoder.nextFrame());
+        assertEquals(0, decoder.available());
+    }
+
+    @Test
+    public void returnsBackToBackFramesInOrder() {
+        byte[] packet = concat(KEY_RESPONSE, DATA_RESPONSE);
+        feed(packet, 0, packet.length);
+
+        assertArrayEquals(KEY_RESPONSE, decoder.nextFrame());
+        assertArrayEquals(DATA_RESPONSE, decoder.nextFrame());
+        assertNull(decoder.nextFrame());
+    }
+
+    @Test
+    public void skipsGarbageBeforeHeader() {
+        byte[] packet = concat(CryptoModule.hexStringToBytes("0000FF13"), KEY_RESPONSE);
+        feed(packet, 0, packet.length);
+
+        assertArrayEquals(KEY_RESPONSE, decoder.nextFrame());
+        assertEquals(0, decoder.available());
+    }
+
+    @Test
+    public void resyncsAfterTruncatedFrame() {
+        // 잘린 데이터 프레임 뒤에 온전한 프레임이 이어서 들어온 경우
+        byte[] truncated = new byte[12];
+        System.arraycopy(DATA_RESPONSE, 0, truncated, 0, truncated.length);
+        byte[] packet = concat(truncated, concat(KEY_RESPONSE, DATA_RESPONSE));
+        feed(packet, 0, packet.length);
+
+        assertArrayEquals(KEY_RESPONSE, decoder.nextFrame());
+        assertArrayEquals(DATA_RESPONSE, decoder.nextFrame());
+        assertNull(decoder.nextFrame());
+    }
+
+    @Test
+    public void resyncsAfterHeaderWithImpossibleLength() {
+        // 0xD4 뒤 길이 필드가 최대 데이터 길이를 넘으면 잘못 잡은 헤더로 봄
+        byte[] packet = concat(CryptoModule.hexStringToBytes("D4BA2DFFFF"), KEY_RESPONSE);
+        feed(packet, 0, packet.length);
+
+        assertArrayEquals(KEY_RESPONSE, decoder.nextFrame());
+        assertNull(decoder.nextFrame());
+    }
+
+    @Test
+    public void waitsForRestOfFrame() {
+        feed(DATA_RESPONSE, 0, DATA_RESPONSE.length - 1);
+        assertNull(decoder.nextFrame());
+        assertEquals(DATA_RESPONSE.length - 1, decoder.available());
+
+        feed(DATA_RESPONSE, DATA_RESPONSE.length - 1, 1);
+        assertArrayEquals(DATA_RESPONSE, decoder.nextFrame());
+    }
+
+    private void feed(byte[] data, int offset, int length) {
+        decoder.feed(data, offset, length);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.tcp_ip_client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * QsimResponse 명령 표 검증 테스트 (QSIM 로그에 남은 응답 기준)
+ */
+public class QsimResponseTest {
+    private static final String KEY_RESPONSE = "D4B4240000F48FD8";
+    private static final String MODE_RESPONSE = "D4B92D00006598D8";
+    private static final String DATA_RESPONSE = "D4BA2D0010C92ED5DDB2448EC936CA33088D204032CBE4D8";
+
+    @Test
+    public void acceptsLoggedResponses() {
+        assertEquals(0, QsimResponse.of(QsimCommand.LEA_KEY, frame(KEY_RESPONSE)).payloadLength());
+        assertEquals(0, QsimResponse.of(QsimCommand.LEA_MODE_ECB, frame(MODE_RESPONSE)).payloadLength());
+        assertEquals(16, new CipherResponse(frame(DATA_RESPONSE)).expectLength(16).payloadLength());
+    }
+
+    @Test
+    public void rejectsResponseForOtherCommand() {
+        assertRejected(QsimCommand.LEA_MODE_ECB, frame(KEY_RESPONSE));
+        try {
+            new CipherResponse(frame(MODE_RESPONSE));
+            fail("LEA_MODE_ECB 응답이 LEA_DATA 로 통과");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void rejectsPayloadSizeNotInTable() {
+        // LEA_KEY 응답에 페이로드 1바이트
+        byte[] frame = new byte[] {(byte) 0xD4, (byte) 0xB4, 0x24, 0x00, 0x01, 0x00, 0x00, 0x00, (byte) 0xD8};
+        QsimCrc.seal(frame);
+        assertRejected(QsimCommand.LEA_KEY, frame);
+    }
+
+    private static void assertRejected(QsimCommand command, byte[] frame) {
+        try {
+            QsimResponse.of(command, frame);
+            fail(command + " 응답 검증 통과");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static byte[] frame(String hex) {
+        return CryptoModule.hexStringToBytes(hex);
+    }
+}